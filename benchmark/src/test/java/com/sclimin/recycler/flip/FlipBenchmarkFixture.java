@@ -0,0 +1,86 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+final class FlipBenchmarkFixture {
+
+    static final int WIDTH = 1080;
+    static final int HEIGHT = 2400;
+
+    private FlipBenchmarkFixture() {
+    }
+
+    static RecyclerView create(RecyclerView.Adapter<?> adapter, int page) {
+        if (Looper.myLooper() == null) {
+            Looper.prepare();
+        }
+
+        Context context = ApplicationProvider.getApplicationContext();
+        RecyclerView recyclerView = new RecyclerView(context);
+        FlipLayoutManager layoutManager = new FlipLayoutManager(context);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        layoutManager.scrollToPosition(page);
+        layout(recyclerView);
+        return recyclerView;
+    }
+
+    static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Pages made of {@code depth} nested FrameLayouts, each with its own background.
+     */
+    static final class PageTreeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final int mItemCount;
+        private final int mDepth;
+
+        PageTreeAdapter(int itemCount, int depth) {
+            mItemCount = itemCount;
+            mDepth = depth;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            Context context = parent.getContext();
+            FlipSampleLayout page = new FlipSampleLayout(context);
+            page.setBackgroundColor(Color.WHITE);
+
+            ViewGroup group = page;
+            for (int i = 0; i < mDepth; i++) {
+                FrameLayout child = new FrameLayout(context);
+                child.setBackgroundColor(i % 2 == 0 ? Color.LTGRAY : Color.DKGRAY);
+                child.setPadding(8, 8, 8, 8);
+                group.addView(child, new FrameLayout.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+                group = child;
+            }
+            return new RecyclerView.ViewHolder(page) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemCount;
+        }
+    }
+}
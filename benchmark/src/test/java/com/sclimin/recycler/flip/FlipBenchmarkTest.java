@@ -0,0 +1,47 @@
+package com.sclimin.recycler.flip;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+
+/**
+ * Runs the JMH benchmarks of this module inside the Robolectric sandbox. Benchmarks are not
+ * forked, so they see the same shadowed Android framework as regular unit tests. Results are
+ * written as JSON to the path in the {@code flip.benchmark.result} system property.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipBenchmarkTest {
+
+    @Test
+    public void runBenchmarks() throws RunnerException {
+        File result = new File(System.getProperty("flip.benchmark.result",
+                "build/reports/benchmark/flip-benchmark.json"));
+        File parent = result.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        Options options = new OptionsBuilder()
+                .include(getClass().getPackage().getName() + ".Flip.*Benchmark")
+                .forks(0)
+                .threads(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.getAbsolutePath())
+                .build();
+        new Runner(options).run();
+    }
+}
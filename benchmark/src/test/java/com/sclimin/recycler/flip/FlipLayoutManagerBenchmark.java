@@ -0,0 +1,64 @@
+package com.sclimin.recycler.flip;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.sclimin.recycler.flip.FlipBenchmarkFixture.HEIGHT;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlipLayoutManagerBenchmark {
+
+    private static final int ITEM_COUNT = 1000;
+    private static final int STEP = 16;
+
+    private RecyclerView mRecyclerView;
+    private RecyclerView.Adapter<?> mAdapter;
+
+    private int mDirection = 1;
+    private int mScrolled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mAdapter = new FlipBenchmarkFixture.PageTreeAdapter(ITEM_COUNT, 1);
+        mRecyclerView = FlipBenchmarkFixture.create(mAdapter, ITEM_COUNT / 2);
+    }
+
+    @Benchmark
+    public void scrollBy() {
+        if (Math.abs(mScrolled + mDirection * STEP) > HEIGHT) {
+            mDirection = -mDirection;
+        }
+        mScrolled += mDirection * STEP;
+        mRecyclerView.scrollBy(0, mDirection * STEP);
+    }
+
+    @Benchmark
+    public void fill() {
+        mDirection = -mDirection;
+        mRecyclerView.scrollBy(0, mDirection * HEIGHT);
+    }
+
+    @Benchmark
+    public void onLayoutChildren() {
+        mRecyclerView.requestLayout();
+        FlipBenchmarkFixture.layout(mRecyclerView);
+    }
+
+    @Benchmark
+    public void onLayoutChildrenAfterDataSetChanged() {
+        mAdapter.notifyDataSetChanged();
+        FlipBenchmarkFixture.layout(mRecyclerView);
+    }
+}
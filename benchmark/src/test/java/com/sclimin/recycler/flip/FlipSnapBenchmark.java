@@ -0,0 +1,51 @@
+package com.sclimin.recycler.flip;
+
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.sclimin.recycler.flip.FlipBenchmarkFixture.HEIGHT;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlipSnapBenchmark {
+
+    private static final int ITEM_COUNT = 1000;
+
+    private FlipLayoutManager mLayoutManager;
+    private View mSnapView;
+
+    private final int[] mScrollDistance = new int[2];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RecyclerView recyclerView = FlipBenchmarkFixture.create(
+                new FlipBenchmarkFixture.PageTreeAdapter(ITEM_COUNT, 1), ITEM_COUNT / 2);
+        recyclerView.scrollBy(0, HEIGHT / 4);
+        mLayoutManager = (FlipLayoutManager) recyclerView.getLayoutManager();
+        mScrollDistance[FlipLayoutManager.VERTICAL] = HEIGHT / 2;
+        mSnapView = mLayoutManager.findViewByPosition(mLayoutManager.getPage());
+    }
+
+    @Benchmark
+    public int findTargetSnapPosition() {
+        return mLayoutManager.findTargetSnapPosition(mScrollDistance);
+    }
+
+    @Benchmark
+    public int[] calculateDistanceToFinalSnap() {
+        return mLayoutManager.calculateDistanceToFinalSnap(mSnapView);
+    }
+}
@@ -0,0 +1,56 @@
+package com.sclimin.recycler.flip;
+
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.sclimin.recycler.flip.FlipBenchmarkFixture.HEIGHT;
+import static com.sclimin.recycler.flip.FlipBenchmarkFixture.WIDTH;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlipDrawBenchmark {
+
+    private static final int ITEM_COUNT = 100;
+
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    @Param({"false", "true"})
+    public boolean snapshot;
+
+    private View mPage;
+    private FlipDrawCounter mCanvas;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RecyclerView recyclerView = FlipBenchmarkFixture.create(
+                new FlipBenchmarkFixture.PageTreeAdapter(ITEM_COUNT, depth), ITEM_COUNT / 2);
+        recyclerView.scrollBy(0, HEIGHT / 4);
+
+        FlipLayoutManager layoutManager = (FlipLayoutManager) recyclerView.getLayoutManager();
+        layoutManager.setSnapshotEnabled(snapshot);
+        mPage = layoutManager.findViewByPosition(layoutManager.getPage());
+        mCanvas = new FlipDrawCounter(WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public int draw() {
+        mCanvas.reset();
+        mPage.draw(mCanvas);
+        return mCanvas.getOperationCount();
+    }
+}
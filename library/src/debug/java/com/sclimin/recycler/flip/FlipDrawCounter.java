@@ -0,0 +1,488 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A canvas that draws nothing and counts what is drawn to it instead. Draw a page into it
+ * with {@link android.view.View#draw(Canvas)}, read the counters and {@link #reset()} it
+ * before the next frame. Page draws are counted by overriding
+ * {@link FlipLayout#drawSuper(Canvas)}. It is part of debug builds only.
+ * <p>
+ * The drawn area follows clips and translations, text, paths and lines count with their
+ * bounds. Under a scale or a {@link #concat(Matrix)} every draw is counted as covering the
+ * whole clip. Drawing operations that are not overridden here are neither counted nor drawn.
+ */
+public final class FlipDrawCounter extends Canvas {
+
+    private final int mWidth;
+    private final int mHeight;
+
+    // Per save level: the clip in canvas coordinates, the translation, and whether any
+    // other transformation was applied.
+    private float[] mClips = new float[4 * 8];
+    private float[] mTranslations = new float[2 * 8];
+    private boolean[] mTransformed = new boolean[8];
+
+    private int mSaveCount;
+    private int mMaxSaveCount;
+
+    private final RectF mRect = new RectF();
+    private final Paint.FontMetrics mFontMetrics = new Paint.FontMetrics();
+
+    private int mOperationCount;
+    private int mClipCount;
+    private int mConcatCount;
+    private int mDrawCount;
+    private double mDrawnArea;
+
+    public FlipDrawCounter(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        reset();
+    }
+
+    public void reset() {
+        mSaveCount = 1;
+        mMaxSaveCount = 1;
+        mClips[0] = 0;
+        mClips[1] = 0;
+        mClips[2] = mWidth;
+        mClips[3] = mHeight;
+        mTranslations[0] = 0;
+        mTranslations[1] = 0;
+        mTransformed[0] = false;
+
+        mOperationCount = 0;
+        mClipCount = 0;
+        mConcatCount = 0;
+        mDrawCount = 0;
+        mDrawnArea = 0;
+    }
+
+    /**
+     * @return all counted operations, state changes included.
+     */
+    public int getOperationCount() {
+        return mOperationCount;
+    }
+
+    public int getClipCount() {
+        return mClipCount;
+    }
+
+    public int getConcatCount() {
+        return mConcatCount;
+    }
+
+    public int getDrawCount() {
+        return mDrawCount;
+    }
+
+    /**
+     * @return the deepest {@link #getSaveCount()} reached since the last {@link #reset()}.
+     */
+    public int getMaxSaveCount() {
+        return mMaxSaveCount;
+    }
+
+    /**
+     * @return the number of pixels drawn, a pixel drawn twice counts twice.
+     */
+    public double getDrawnArea() {
+        return mDrawnArea;
+    }
+
+    /**
+     * @return the drawn area in canvas sizes, 1 means every pixel drawn once on average.
+     */
+    public float getOverdraw() {
+        return mWidth > 0 && mHeight > 0 ? (float) (mDrawnArea / ((double) mWidth * mHeight)) : 0;
+    }
+
+    @Override
+    public boolean isHardwareAccelerated() {
+        return false;
+    }
+
+    @Override
+    public int getWidth() {
+        return mWidth;
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeight;
+    }
+
+    @Override
+    public int save() {
+        mOperationCount++;
+        final int level = mSaveCount;
+        if (level == mTransformed.length) {
+            mClips = Arrays.copyOf(mClips, 8 * level);
+            mTranslations = Arrays.copyOf(mTranslations, 4 * level);
+            mTransformed = Arrays.copyOf(mTransformed, 2 * level);
+        }
+        System.arraycopy(mClips, 4 * (level - 1), mClips, 4 * level, 4);
+        System.arraycopy(mTranslations, 2 * (level - 1), mTranslations, 2 * level, 2);
+        mTransformed[level] = mTransformed[level - 1];
+
+        mSaveCount++;
+        mMaxSaveCount = Math.max(mMaxSaveCount, mSaveCount);
+        return level;
+    }
+
+    @Override
+    public int save(int saveFlags) {
+        return save();
+    }
+
+    @Override
+    public int saveLayer(@Nullable RectF bounds, @Nullable Paint paint) {
+        return save();
+    }
+
+    @Override
+    public int saveLayer(float left, float top, float right, float bottom, @Nullable Paint paint) {
+        return save();
+    }
+
+    @Override
+    public int saveLayerAlpha(@Nullable RectF bounds, int alpha) {
+        return save();
+    }
+
+    @Override
+    public int saveLayerAlpha(float left, float top, float right, float bottom, int alpha) {
+        return save();
+    }
+
+    @Override
+    public void restore() {
+        mOperationCount++;
+        if (mSaveCount <= 1) {
+            throw new IllegalStateException("Underflow in restore");
+        }
+        mSaveCount--;
+    }
+
+    @Override
+    public int getSaveCount() {
+        return mSaveCount;
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        mOperationCount++;
+        if (saveCount < 1 || saveCount > mSaveCount) {
+            throw new IllegalArgumentException("Invalid save count " + saveCount);
+        }
+        mSaveCount = saveCount;
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        mOperationCount++;
+        final int level = mSaveCount - 1;
+        mTranslations[2 * level] += dx;
+        mTranslations[2 * level + 1] += dy;
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+        mOperationCount++;
+        if (sx != 1 || sy != 1) {
+            mTransformed[mSaveCount - 1] = true;
+        }
+    }
+
+    @Override
+    public void concat(@Nullable Matrix matrix) {
+        mOperationCount++;
+        mConcatCount++;
+        if (matrix != null && !matrix.isIdentity()) {
+            mTransformed[mSaveCount - 1] = true;
+        }
+    }
+
+    @Override
+    public boolean clipRect(@NonNull Rect rect) {
+        return clipRect(rect.left, rect.top, rect.right, rect.bottom);
+    }
+
+    @Override
+    public boolean clipRect(@NonNull RectF rect) {
+        return clipRect(rect.left, rect.top, rect.right, rect.bottom);
+    }
+
+    @Override
+    public boolean clipRect(int left, int top, int right, int bottom) {
+        return clipRect((float) left, top, right, bottom);
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        mOperationCount++;
+        mClipCount++;
+
+        final int level = mSaveCount - 1;
+        if (mTransformed[level]) {
+            // Cannot be mapped, the clip only gets smaller so the old one still bounds it.
+            return !isClipEmpty(level);
+        }
+
+        final float[] clips = mClips;
+        final float dx = mTranslations[2 * level];
+        final float dy = mTranslations[2 * level + 1];
+        final int i = 4 * level;
+        clips[i] = Math.max(clips[i], left + dx);
+        clips[i + 1] = Math.max(clips[i + 1], top + dy);
+        clips[i + 2] = Math.min(clips[i + 2], right + dx);
+        clips[i + 3] = Math.min(clips[i + 3], bottom + dy);
+        return !isClipEmpty(level);
+    }
+
+    @Override
+    public boolean getClipBounds(@Nullable Rect bounds) {
+        final int level = mSaveCount - 1;
+        if (bounds != null) {
+            final float[] clips = mClips;
+            final int i = 4 * level;
+            final float dx = mTransformed[level] ? 0 : mTranslations[2 * level];
+            final float dy = mTransformed[level] ? 0 : mTranslations[2 * level + 1];
+            bounds.set((int) Math.floor(clips[i] - dx), (int) Math.floor(clips[i + 1] - dy),
+                    (int) Math.ceil(clips[i + 2] - dx), (int) Math.ceil(clips[i + 3] - dy));
+        }
+        return !isClipEmpty(level);
+    }
+
+    @Override
+    public void drawColor(int color) {
+        drawClip();
+    }
+
+    @Override
+    public void drawPaint(@NonNull Paint paint) {
+        drawClip();
+    }
+
+    @Override
+    public void drawRect(@NonNull Rect r, @NonNull Paint paint) {
+        drawArea(r.left, r.top, r.right, r.bottom);
+    }
+
+    @Override
+    public void drawRect(@NonNull RectF rect, @NonNull Paint paint) {
+        drawArea(rect.left, rect.top, rect.right, rect.bottom);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, @NonNull Paint paint) {
+        drawArea(left, top, right, bottom);
+    }
+
+    @Override
+    public void drawRoundRect(@NonNull RectF rect, float rx, float ry, @NonNull Paint paint) {
+        drawArea(rect.left, rect.top, rect.right, rect.bottom);
+    }
+
+    @Override
+    public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry,
+                              @NonNull Paint paint) {
+        drawArea(left, top, right, bottom);
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, float left, float top, @Nullable Paint paint) {
+        drawArea(left, top, left + bitmap.getWidth(), top + bitmap.getHeight());
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, @Nullable Rect src, @NonNull Rect dst,
+                           @Nullable Paint paint) {
+        drawArea(dst.left, dst.top, dst.right, dst.bottom);
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, @Nullable Rect src, @NonNull RectF dst,
+                           @Nullable Paint paint) {
+        drawArea(dst.left, dst.top, dst.right, dst.bottom);
+    }
+
+    @Override
+    public void drawText(@NonNull char[] text, int index, int count, float x, float y,
+                         @NonNull Paint paint) {
+        drawText(x, y, paint.measureText(text, index, count), paint);
+    }
+
+    @Override
+    public void drawText(@NonNull String text, float x, float y, @NonNull Paint paint) {
+        drawText(x, y, paint.measureText(text), paint);
+    }
+
+    @Override
+    public void drawText(@NonNull String text, int start, int end, float x, float y,
+                         @NonNull Paint paint) {
+        drawText(x, y, paint.measureText(text, start, end), paint);
+    }
+
+    @Override
+    public void drawText(@NonNull CharSequence text, int start, int end, float x, float y,
+                         @NonNull Paint paint) {
+        drawText(x, y, paint.measureText(text, start, end), paint);
+    }
+
+    @Override
+    public void drawTextRun(@NonNull char[] text, int index, int count, int contextIndex,
+                            int contextCount, float x, float y, boolean isRtl,
+                            @NonNull Paint paint) {
+        drawText(x, y, paint.measureText(text, index, count), paint);
+    }
+
+    @Override
+    public void drawTextRun(@NonNull CharSequence text, int start, int end, int contextStart,
+                            int contextEnd, float x, float y, boolean isRtl,
+                            @NonNull Paint paint) {
+        drawText(x, y, paint.measureText(text, start, end), paint);
+    }
+
+    @Override
+    public void drawPath(@NonNull Path path, @NonNull Paint paint) {
+        final RectF rect = mRect;
+        path.computeBounds(rect, true);
+        drawStroked(rect, paint);
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY,
+                         @NonNull Paint paint) {
+        // Lines are stroked whatever the paint style.
+        final float halfWidth = paint.getStrokeWidth() / 2;
+        drawArea(Math.min(startX, stopX) - halfWidth, Math.min(startY, stopY) - halfWidth,
+                Math.max(startX, stopX) + halfWidth, Math.max(startY, stopY) + halfWidth);
+    }
+
+    @Override
+    public void drawLines(@NonNull float[] pts, int offset, int count, @NonNull Paint paint) {
+        for (int i = offset; i + 3 < offset + count; i += 4) {
+            drawLine(pts[i], pts[i + 1], pts[i + 2], pts[i + 3], paint);
+        }
+    }
+
+    @Override
+    public void drawLines(@NonNull float[] pts, @NonNull Paint paint) {
+        drawLines(pts, 0, pts.length, paint);
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, @NonNull Paint paint) {
+        final RectF rect = mRect;
+        rect.set(cx - radius, cy - radius, cx + radius, cy + radius);
+        drawStroked(rect, paint);
+    }
+
+    @Override
+    public void drawOval(@NonNull RectF oval, @NonNull Paint paint) {
+        drawOval(oval.left, oval.top, oval.right, oval.bottom, paint);
+    }
+
+    @Override
+    public void drawOval(float left, float top, float right, float bottom, @NonNull Paint paint) {
+        final RectF rect = mRect;
+        rect.set(left, top, right, bottom);
+        drawStroked(rect, paint);
+    }
+
+    private void drawText(float x, float y, float width, Paint paint) {
+        switch (paint.getTextAlign()) {
+            case CENTER:
+                x -= width / 2;
+                break;
+            case RIGHT:
+                x -= width;
+                break;
+            default:
+                break;
+        }
+        final Paint.FontMetrics metrics = mFontMetrics;
+        paint.getFontMetrics(metrics);
+        if (metrics.ascent == 0 && metrics.descent == 0) {
+            // No font metrics without a native text stack, e.g. under Robolectric.
+            metrics.ascent = -paint.getTextSize();
+        }
+        drawArea(x, y + metrics.ascent, x + width, y + metrics.descent);
+    }
+
+    private void drawStroked(RectF rect, Paint paint) {
+        final float halfWidth = paint.getStyle() == Paint.Style.FILL ? 0 : paint.getStrokeWidth() / 2;
+        drawArea(rect.left - halfWidth, rect.top - halfWidth,
+                rect.right + halfWidth, rect.bottom + halfWidth);
+    }
+
+    private void drawClip() {
+        mOperationCount++;
+        mDrawCount++;
+        mDrawnArea += clipArea(mSaveCount - 1);
+    }
+
+    private void drawArea(float left, float top, float right, float bottom) {
+        mOperationCount++;
+        mDrawCount++;
+
+        final int level = mSaveCount - 1;
+        if (mTransformed[level]) {
+            mDrawnArea += clipArea(level);
+            return;
+        }
+
+        final float[] clips = mClips;
+        final int i = 4 * level;
+        final float dx = mTranslations[2 * level];
+        final float dy = mTranslations[2 * level + 1];
+        final float width = Math.min(clips[i + 2], right + dx) - Math.max(clips[i], left + dx);
+        final float height = Math.min(clips[i + 3], bottom + dy) - Math.max(clips[i + 1], top + dy);
+        if (width > 0 && height > 0) {
+            mDrawnArea += (double) width * height;
+        }
+    }
+
+    private double clipArea(int level) {
+        if (isClipEmpty(level)) {
+            return 0;
+        }
+        final int i = 4 * level;
+        return (double) (mClips[i + 2] - mClips[i]) * (mClips[i + 3] - mClips[i + 1]);
+    }
+
+    private boolean isClipEmpty(int level) {
+        final int i = 4 * level;
+        return mClips[i + 2] <= mClips[i] || mClips[i + 3] <= mClips[i + 1];
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+/**
+ * Picks the page a fling settles on, see
+ * {@link FlipLayoutManager#setFlingStrategy(FlipFlingStrategy)}.
+ */
+public interface FlipFlingStrategy {
+
+    /**
+     * @param page           the current page.
+     * @param offsetFraction how far the current page is flipped, within [-0.5, 0.5), positive
+     *                       towards the next page.
+     * @param flingPages     how many pages the fling would travel without snapping, may be
+     *                       fractional and negative.
+     * @param itemCount      the number of pages, at least 1.
+     * @return the page to settle on, within [0, itemCount).
+     */
+    int findTargetPage(int page, float offsetFraction, float flingPages, int itemCount);
+}
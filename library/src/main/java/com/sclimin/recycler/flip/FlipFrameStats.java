@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Frame timing of one flip gesture, from the first scroll until the pages stopped moving,
+ * settling included. A frame is janky when it took longer than one and a half frame budgets.
+ * Janky frames are blamed on the flip stage that took the most time in them, bind, fill,
+ * scroll, layout, snap or draw, or on {@link #STAGE_NONE} if the flip did no work in that
+ * frame.
+ * <p>
+ * The instance passed to {@link Listener#onFrameStats(FlipFrameStats)} is reused for the
+ * next gesture, copy what should outlive the call.
+ */
+public final class FlipFrameStats {
+
+    public interface Listener {
+        void onFrameStats(@NonNull FlipFrameStats stats);
+    }
+
+    public static final int STAGE_NONE = -1;
+
+    /**
+     * Janky frames beyond this many are counted but not recorded one by one.
+     */
+    public static final int MAX_RECORDED_FRAMES = 32;
+
+    private long mFrameBudgetNanos;
+    private long mDurationNanos;
+    private long mMaxFrameNanos;
+    private int mFrameCount;
+    private int mJankyFrameCount;
+
+    private final int[] mJankyFrameCounts = new int[FlipMetrics.STAGE_COUNT + 1];
+
+    private final int[] mJankyFrameIndices = new int[MAX_RECORDED_FRAMES];
+    private final long[] mJankyFrameNanos = new long[MAX_RECORDED_FRAMES];
+    private final int[] mJankyFrameStages = new int[MAX_RECORDED_FRAMES];
+
+    FlipFrameStats() {
+    }
+
+    public long getFrameBudgetNanos() {
+        return mFrameBudgetNanos;
+    }
+
+    public long getDurationNanos() {
+        return mDurationNanos;
+    }
+
+    public long getMaxFrameNanos() {
+        return mMaxFrameNanos;
+    }
+
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    public int getJankyFrameCount() {
+        return mJankyFrameCount;
+    }
+
+    /**
+     * @return the number of janky frames blamed on {@code stage}, a {@link FlipMetrics.Stage}
+     * or {@link #STAGE_NONE}.
+     */
+    public int getJankyFrameCount(int stage) {
+        return mJankyFrameCounts[stage + 1];
+    }
+
+    /**
+     * @return how many janky frames {@link #getJankyFrameIndex(int)} and friends report, at
+     * most {@link #MAX_RECORDED_FRAMES}.
+     */
+    public int getRecordedFrameCount() {
+        return Math.min(mJankyFrameCount, MAX_RECORDED_FRAMES);
+    }
+
+    /**
+     * @return the index of the {@code i}-th janky frame within the gesture.
+     */
+    public int getJankyFrameIndex(int i) {
+        return mJankyFrameIndices[i];
+    }
+
+    public long getJankyFrameNanos(int i) {
+        return mJankyFrameNanos[i];
+    }
+
+    public int getJankyFrameStage(int i) {
+        return mJankyFrameStages[i];
+    }
+
+    void reset(long frameBudgetNanos) {
+        mFrameBudgetNanos = frameBudgetNanos;
+        mDurationNanos = 0;
+        mMaxFrameNanos = 0;
+        mFrameCount = 0;
+        mJankyFrameCount = 0;
+        for (int i = 0; i < mJankyFrameCounts.length; i++) {
+            mJankyFrameCounts[i] = 0;
+        }
+    }
+
+    void addFrame(long frameNanos, int stage) {
+        final int index = mFrameCount++;
+        mDurationNanos += frameNanos;
+        if (frameNanos > mMaxFrameNanos) {
+            mMaxFrameNanos = frameNanos;
+        }
+
+        if (frameNanos * 2 <= mFrameBudgetNanos * 3) {
+            return;
+        }
+        if (mJankyFrameCount < MAX_RECORDED_FRAMES) {
+            mJankyFrameIndices[mJankyFrameCount] = index;
+            mJankyFrameNanos[mJankyFrameCount] = frameNanos;
+            mJankyFrameStages[mJankyFrameCount] = stage;
+        }
+        mJankyFrameCount++;
+        mJankyFrameCounts[stage + 1]++;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import android.view.Choreographer;
+
+/**
+ * Collects {@link FlipFrameStats} for flip gestures. It sits in front of the
+ * {@link FlipMetrics} set on the layout manager to see the stage timings, and follows the
+ * gesture frame by frame with {@link Choreographer} callbacks. A gesture ends once the pages
+ * have not moved for {@link #IDLE_FRAMES} frames.
+ */
+final class FlipFrameTracker extends FlipMetrics implements Choreographer.FrameCallback {
+
+    static final int IDLE_FRAMES = 4;
+
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = 1_000_000_000L / 60;
+
+    private final FlipFrameStats.Listener mListener;
+    private final FlipFrameStats mStats = new FlipFrameStats();
+    private FlipMetrics mDelegate;
+
+    private long mFrameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+
+    // Time spent in every stage since the last frame callback, without the stages inside.
+    private final long[] mStageNanos = new long[STAGE_COUNT];
+
+    // Time spent in the stages inside every open stage, the innermost last.
+    private final long[] mNestedNanos = new long[STAGE_COUNT];
+    private int mDepth;
+
+    private boolean mTracking;
+    private boolean mScrolled;
+    private int mIdleFrames;
+    private long mLastFrameNanos;
+
+    FlipFrameTracker(FlipFrameStats.Listener listener) {
+        mListener = listener;
+    }
+
+    void setDelegate(FlipMetrics delegate) {
+        mDelegate = delegate;
+    }
+
+    void setRefreshRate(float refreshRate) {
+        mFrameBudgetNanos = refreshRate > 0 ?
+                (long) (1e9 / refreshRate) : DEFAULT_FRAME_BUDGET_NANOS;
+    }
+
+    @Override
+    void onBegin(@Stage int stage) {
+        if (mDepth < mNestedNanos.length) {
+            mNestedNanos[mDepth] = 0;
+        }
+        mDepth++;
+        if (mDelegate != null) {
+            mDelegate.onBegin(stage);
+        }
+    }
+
+    @Override
+    public void onStage(@Stage int stage, long durationNanos) {
+        long exclusiveNanos = durationNanos;
+        if (mDepth > 0) {
+            mDepth--;
+            if (mDepth < mNestedNanos.length) {
+                exclusiveNanos -= mNestedNanos[mDepth];
+            }
+            if (mDepth > 0 && mDepth <= mNestedNanos.length) {
+                mNestedNanos[mDepth - 1] += durationNanos;
+            }
+        }
+        mStageNanos[stage] += Math.max(0, exclusiveNanos);
+        if (mDelegate != null) {
+            mDelegate.onStage(stage, durationNanos);
+        }
+    }
+
+    void onScrolled() {
+        mScrolled = true;
+        if (!mTracking) {
+            mTracking = true;
+            mIdleFrames = 0;
+            mLastFrameNanos = 0;
+            mStats.reset(mFrameBudgetNanos);
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void cancel() {
+        if (mTracking) {
+            mTracking = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (onFrame(frameTimeNanos)) {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * @return true while the gesture goes on.
+     */
+    boolean onFrame(long frameTimeNanos) {
+        if (!mTracking) {
+            return false;
+        }
+
+        // Frames in which the pages did not move are not part of the flip.
+        final boolean scrolled = mScrolled;
+        if (scrolled && mLastFrameNanos != 0) {
+            mStats.addFrame(frameTimeNanos - mLastFrameNanos, findSlowestStage());
+        }
+        mLastFrameNanos = frameTimeNanos;
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            mStageNanos[i] = 0;
+        }
+
+        if (scrolled) {
+            mScrolled = false;
+            mIdleFrames = 0;
+            return true;
+        }
+        if (++mIdleFrames < IDLE_FRAMES) {
+            return true;
+        }
+
+        mTracking = false;
+        mListener.onFrameStats(mStats);
+        return false;
+    }
+
+    /**
+     * Each stage is weighed by the time it spent outside the stages it contains.
+     */
+    private int findSlowestStage() {
+        final long[] nanos = mStageNanos;
+
+        int stage = FlipFrameStats.STAGE_NONE;
+        long max = 0;
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            if (nanos[i] > max) {
+                max = nanos[i];
+                stage = i;
+            }
+        }
+        return stage;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import android.view.View;
+
+/**
+ * Keeps at most a budget of views on {@link View#LAYER_TYPE_HARDWARE}. Only views without a
+ * layer of their own are promoted, and they are set back to {@link View#LAYER_TYPE_NONE}.
+ */
+final class FlipHardwareLayers {
+
+    private final View[] mViews;
+    private int mCount;
+
+    FlipHardwareLayers(int budget) {
+        mViews = new View[budget];
+    }
+
+    int getBudget() {
+        return mViews.length;
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Promotes the first {@code targets} the budget covers and demotes every other view.
+     */
+    void update(View[] targets, int targetCount) {
+        final View[] views = mViews;
+        final int count = Math.min(targetCount, views.length);
+        for (int i = mCount - 1; i >= 0; i--) {
+            if (!contains(targets, count, views[i])) {
+                demote(i);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            final View target = targets[i];
+            // A promoted view is known by identity, the app may have changed its layer type.
+            if (contains(views, mCount, target)) {
+                continue;
+            }
+            if (target.getLayerType() == View.LAYER_TYPE_NONE) {
+                target.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+                views[mCount++] = target;
+            }
+        }
+    }
+
+    void demoteAll() {
+        for (int i = mCount - 1; i >= 0; i--) {
+            demote(i);
+        }
+    }
+
+    private void demote(int index) {
+        final View[] views = mViews;
+        final View view = views[index];
+        if (view.getLayerType() == View.LAYER_TYPE_HARDWARE) {
+            view.setLayerType(View.LAYER_TYPE_NONE, null);
+        }
+
+        mCount--;
+        views[index] = views[mCount];
+        views[mCount] = null;
+    }
+
+    private static boolean contains(View[] views, int count, View view) {
+        for (int i = 0; i < count; i++) {
+            if (views[i] == view) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
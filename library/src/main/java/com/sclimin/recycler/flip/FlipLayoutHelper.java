@@ -16,13 +16,14 @@
 
 package com.sclimin.recycler.flip;
 
-import android.graphics.Camera;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.os.Build;
 import android.view.View;
+import android.view.ViewParent;
 
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -30,12 +31,29 @@ public final class FlipLayoutHelper {
     private final Rect mBounds = new Rect();
     private final Rect mRect = new Rect();
 
-    private final Camera mCamera = new Camera();
+    private final FlipProjection mProjection = new FlipProjection();
     private final Matrix mMatrix = new Matrix();
 
-    private final Paint mPaint = new Paint();
+    private final FlipShading mShading = new FlipShading();
+    private final Paint mBitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    // The snapshot this page last put into the snapshot cache, the cache owns it.
+    private Bitmap mSnapshot;
+    private long mSnapshotKey = RecyclerView.NO_ID;
+    private boolean mSnapshotValid;
+
+    // A page whose snapshots keep going stale before a flip draws them, e.g. one that runs
+    // an animation, is not rendered ahead any more until it shows another item.
+    private static final int MAX_UNUSED_SNAPSHOTS = 2;
+    private boolean mSnapshotPrepared;
+    private int mUnusedSnapshotCount;
+
+    private FlipRenderNodeRenderer mRenderNodeRenderer;
 
     private final FlipLayout mFlipLayout;
+    private View mView;
+    private int mWidth = -1;
+    private int mHeight = -1;
 
     final static int FLIP_START = 0;
     final static int FLIP_END = 1;
@@ -47,13 +65,45 @@ public final class FlipLayoutHelper {
             throw new RuntimeException("");
         }
         mFlipLayout = flipLayout;
+        mView = (View) flipLayout;
+        mView.setTag(R.id.flip_layout_helper, this);
+    }
+
+    /**
+     * A helper that is not owned by its page, {@link #bind(View)} points it at the page to
+     * draw and {@code flipLayout} draws the content of that page.
+     */
+    FlipLayoutHelper(FlipLayout flipLayout, View view) {
+        mFlipLayout = flipLayout;
+        mView = view;
+    }
+
+    /**
+     * Points a shared helper at {@code view}, the per page state is dropped when the page
+     * or its size changes.
+     */
+    void bind(View view) {
+        if (mView != view) {
+            mView = view;
+            mSnapshot = null;
+            mSnapshotKey = RecyclerView.NO_ID;
+            mWidth = -1;
+        }
+        if (mWidth != view.getWidth() || mHeight != view.getHeight()) {
+            sizeChanged(view.getWidth(), view.getHeight());
+        }
+    }
+
+    static FlipLayoutHelper from(View view) {
+        final Object helper = view.getTag(R.id.flip_layout_helper);
+        return helper instanceof FlipLayoutHelper ? (FlipLayoutHelper) helper : null;
     }
 
     private View getView() {
-        return (View) mFlipLayout;
+        return mView;
     }
 
-    private int getDegree() {
+    private float getDegree() {
         return ((FlipLayoutManager.LayoutParams) getView().getLayoutParams()).mDegree;
     }
 
@@ -61,15 +111,44 @@ public final class FlipLayoutHelper {
         return ((FlipLayoutManager.LayoutParams) getView().getLayoutParams()).mOrientation;
     }
 
+    private FlipLayoutManager getLayoutManager() {
+        final ViewParent parent = getView().getParent();
+        if (parent instanceof RecyclerView) {
+            final RecyclerView.LayoutManager layoutManager = ((RecyclerView) parent).getLayoutManager();
+            if (layoutManager instanceof FlipLayoutManager) {
+                return (FlipLayoutManager) layoutManager;
+            }
+        }
+        return null;
+    }
+
     public final boolean draw(Canvas canvas) {
 
-        final int degree = getDegree();
-        final int orientation = getOrientation();
+        final float degree = getDegree();
 
         if (degree == 0) {
+            resetRenderNodeRenderer();
             return false;
         }
 
+        final FlipLayoutManager layoutManager = getLayoutManager();
+        final FlipMetrics metrics = layoutManager != null ? layoutManager.getStageMetrics() : null;
+        final long start = metrics != null ? metrics.begin(FlipMetrics.STAGE_DRAW) : 0;
+
+        final Bitmap snapshot = layoutManager != null ? obtainSnapshot(canvas, layoutManager) : null;
+        final FlipShading shading = layoutManager == null || layoutManager.isShadingEnabled() ?
+                mShading : null;
+        drawFlip(canvas, degree, snapshot, shading);
+
+        if (metrics != null) {
+            metrics.end(FlipMetrics.STAGE_DRAW, start);
+        }
+        return true;
+    }
+
+    private void drawFlip(Canvas canvas, float degree, Bitmap snapshot, FlipShading shading) {
+        final int orientation = getOrientation();
+
         int flip;
         if (orientation == RecyclerView.VERTICAL) {
             flip = degree < 0 ? FLIP_TOP : FLIP_BOTTOM;
@@ -78,49 +157,205 @@ public final class FlipLayoutHelper {
             flip = degree < 0 ? FLIP_START : FLIP_END;
         }
 
-        flipPart(canvas, degree, flip);
-        clipPart(canvas, flip);
+        if (snapshot == null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && canvas.isHardwareAccelerated()) {
+                if (mRenderNodeRenderer == null) {
+                    mRenderNodeRenderer = new FlipRenderNodeRenderer();
+                }
+                final View view = getView();
+                mRenderNodeRenderer.draw(canvas, mFlipLayout, view.getWidth(), view.getHeight(),
+                        mBounds, orientation, degree, flip, shading);
+                return;
+            }
+        }
+        resetRenderNodeRenderer();
+
+        flipPart(canvas, degree, flip, snapshot, shading);
+        clipPart(canvas, flip, snapshot);
+    }
+
+    /**
+     * Drops what was recorded for the current flip, as drawing the page at 0 degree does.
+     */
+    void reset() {
+        resetRenderNodeRenderer();
+    }
+
+    private void resetRenderNodeRenderer() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && mRenderNodeRenderer != null) {
+            mRenderNodeRenderer.reset();
+        }
+    }
+
+    /**
+     * Marks the cached page snapshot and the recorded display list as stale, the next flip
+     * frame renders the page again.
+     * Call it when the content of the page changes, e.g. from
+     * {@link android.view.ViewGroup#onDescendantInvalidated(View, View)}. It is cheap enough
+     * to be called for every invalidate, nothing is rendered until a flip needs the page.
+     */
+    public final void invalidateSnapshot() {
+        if (mSnapshotValid && mSnapshotPrepared) {
+            mUnusedSnapshotCount++;
+        }
+        mSnapshotValid = false;
+        mSnapshotPrepared = false;
+        resetRenderNodeRenderer();
+    }
+
+    /**
+     * Renders the snapshot ahead of the flip if it is missing or stale and fits into the
+     * snapshot cache without evicting anything.
+     *
+     * @return true if a snapshot was rendered.
+     */
+    boolean prepareSnapshot() {
+        final FlipLayoutManager layoutManager = getLayoutManager();
+        if (layoutManager == null) {
+            return false;
+        }
+
+        final long key = getSnapshotKey();
+        if (key != mSnapshotKey) {
+            mUnusedSnapshotCount = 0;
+        }
+        else if (mUnusedSnapshotCount >= MAX_UNUSED_SNAPSHOTS) {
+            return false;
+        }
+
+        final FlipSnapshotCache cache = layoutManager.getSnapshotCache();
+        final View view = getView();
+        if (findSnapshot(cache, key) != null ||
+                !cache.hasRoomFor(view.getWidth(), view.getHeight())) {
+            return false;
+        }
+        if (ensureSnapshot(cache) == null) {
+            return false;
+        }
+        mSnapshotPrepared = true;
         return true;
     }
 
+    private Bitmap obtainSnapshot(Canvas canvas, FlipLayoutManager layoutManager) {
+        if (!layoutManager.isSnapshotEnabled()) {
+            if (mSnapshot != null) {
+                releaseSnapshot(layoutManager.getSnapshotCache());
+            }
+            return null;
+        }
 
-    public final void sizeChanged(int w, int h) {
-        mBounds.set(getView().getPaddingStart(), getView().getPaddingTop(),
-                w - getView().getPaddingEnd(),
-                h - getView().getPaddingBottom());
+        final FlipSnapshotCache cache = layoutManager.getSnapshotCache();
+        if (cache.getConfig() == Bitmap.Config.HARDWARE && !canvas.isHardwareAccelerated()) {
+            return null;
+        }
+        mSnapshotPrepared = false;
+        return ensureSnapshot(cache);
     }
 
-    private Matrix computeFlipMatrix(int degree) {
-        final Camera camera = mCamera;
-        final Matrix matrix = mMatrix;
-        final int orientation = getOrientation();
-        final Rect bounds = mBounds;
+    private Bitmap ensureSnapshot(FlipSnapshotCache cache) {
+        final View view = getView();
+        final int width = view.getWidth();
+        final int height = view.getHeight();
+        final long key = getSnapshotKey();
+        if (width <= 0 || height <= 0 || key == RecyclerView.NO_ID) {
+            return null;
+        }
 
-        matrix.reset();
+        Bitmap snapshot = findSnapshot(cache, key);
+        if (snapshot == null || snapshot.getWidth() != width || snapshot.getHeight() != height) {
+            if (mSnapshot != null) {
+                releaseSnapshot(cache);
+            }
+
+            snapshot = cache.render(mFlipLayout, width, height);
+            if (snapshot == null) {
+                return null;
+            }
+            cache.put(key, snapshot);
+            mSnapshot = snapshot;
+            mSnapshotKey = key;
+            mSnapshotValid = true;
+        }
+        return snapshot;
+    }
 
-        camera.save();
-        camera.setLocation(0, 0, -40);
-        if (orientation == RecyclerView.VERTICAL) {
-            camera.rotateX(degree);
+    /**
+     * @return the snapshot this page rendered for {@code key}, if it is still valid and cached.
+     */
+    private Bitmap findSnapshot(FlipSnapshotCache cache, long key) {
+        if (!mSnapshotValid || mSnapshotKey != key || mSnapshot == null) {
+            return null;
+        }
+
+        final Bitmap snapshot = cache.get(key);
+        return snapshot == mSnapshot ? snapshot : null;
+    }
+
+    private void releaseSnapshot(FlipSnapshotCache cache) {
+        cache.remove(mSnapshotKey, mSnapshot);
+        mSnapshot = null;
+        mSnapshotKey = RecyclerView.NO_ID;
+        mSnapshotValid = false;
+    }
+
+    /**
+     * Snapshots are cached by item id for adapters with stable ids, by adapter position
+     * otherwise.
+     */
+    private long getSnapshotKey() {
+        final View view = getView();
+        final ViewParent parent = view.getParent();
+        if (!(parent instanceof RecyclerView)) {
+            return RecyclerView.NO_ID;
+        }
+
+        final RecyclerView recyclerView = (RecyclerView) parent;
+        final RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+        final RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(view);
+        if (adapter == null || holder == null) {
+            return RecyclerView.NO_ID;
+        }
+        if (adapter.hasStableIds()) {
+            return holder.getItemId();
+        }
+
+        final int position = holder.getAdapterPosition();
+        return position == RecyclerView.NO_POSITION ? RecyclerView.NO_ID : position;
+    }
+
+    private void drawPage(Canvas canvas, Bitmap snapshot) {
+        if (snapshot != null) {
+            canvas.drawBitmap(snapshot, 0, 0, mBitmapPaint);
         }
         else {
-            camera.rotateY(-degree);
+            mFlipLayout.drawSuper(canvas);
         }
-        camera.getMatrix(matrix);
-        camera.restore();
+    }
+
 
-        matrix.preTranslate(-bounds.centerX(), -bounds.centerY());
-        matrix.postTranslate(bounds.centerX(), bounds.centerY());
+    public final void sizeChanged(int w, int h) {
+        mBounds.set(getView().getPaddingStart(), getView().getPaddingTop(),
+                w - getView().getPaddingEnd(),
+                h - getView().getPaddingBottom());
+        mProjection.setCenter(mBounds.centerX(), mBounds.centerY());
+        mShading.setBounds(mBounds);
+        mWidth = w;
+        mHeight = h;
+        mSnapshotValid = false;
+        resetRenderNodeRenderer();
+    }
 
+    private Matrix computeFlipMatrix(float degree) {
+        final Matrix matrix = mMatrix;
+        matrix.setValues(mProjection.compute(getOrientation() == RecyclerView.VERTICAL, degree));
         return matrix;
     }
 
-    private void flipPart(Canvas canvas, int degree, int flip) {
+    private void flipPart(Canvas canvas, float degree, int flip, Bitmap snapshot, FlipShading shading) {
         canvas.save();
 
         final Rect rect = mRect;
         final Rect bounds = mBounds;
-        final Paint paint = mPaint;
 
         canvas.getClipBounds(rect);
         switch (flip) {
@@ -142,15 +377,16 @@ public final class FlipLayoutHelper {
         canvas.clipRect(rect);
         canvas.concat(computeFlipMatrix(degree));
 
-        mFlipLayout.drawSuper(canvas);
+        drawPage(canvas, snapshot);
 
-        paint.setColor(Color.argb((int) (0x99 * Math.abs(degree) / 90.f), 0, 0, 0));
-        canvas.drawRect(bounds, paint);
+        if (shading != null) {
+            shading.draw(canvas, flip, degree);
+        }
 
         canvas.restore();
     }
 
-    private void clipPart(Canvas canvas, int flip) {
+    private void clipPart(Canvas canvas, int flip, Bitmap snapshot) {
         canvas.save();
 
         final Rect rect = mRect;
@@ -174,7 +410,7 @@ public final class FlipLayoutHelper {
         }
         canvas.clipRect(rect);
 
-        mFlipLayout.drawSuper(canvas);
+        drawPage(canvas, snapshot);
 
         canvas.restore();
     }
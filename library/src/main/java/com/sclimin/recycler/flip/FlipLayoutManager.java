@@ -19,10 +19,14 @@ package com.sclimin.recycler.flip;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.PointF;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.util.AttributeSet;
+import android.view.Display;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -32,14 +36,62 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager implements
     public static final int HORIZONTAL = RecyclerView.HORIZONTAL;
     public static final int VERTICAL = RecyclerView.VERTICAL;
 
+    public static final int DIRECTION_PREVIOUS = -1;
+    public static final int DIRECTION_NEXT = 1;
+
+    private static final int DEFAULT_PREFETCH_PAGE_COUNT = 1;
+
+    // Pages the current scroll speed reaches within this many frames are prefetched as well.
+    private static final int PREFETCH_LOOKAHEAD_FRAMES = 8;
+
+    // Flip angles are rendered in steps of 1 / DEGREE_STEPS degree.
+    private static final float DEGREE_STEPS = 10.f;
+
     @RecyclerView.Orientation
     private final int mOrientation;
 
-    private int mItemLength;
-    private int mOffset;
-    private int mPage;
+    private final FlipPager mPager = new FlipPager();
+
+    // Sign of the offset the visibility of the neighbour pages was last set for.
+    private int mVisibleSide;
+
+    private int mLayoutWidth;
+    private int mLayoutHeight;
 
     private final int[] mPositionSet = new int[3];
+    private final int[] mSnapDistance = new int[2];
+    private final PointF mScrollVector = new PointF();
+
+    private boolean mSnapshotEnabled;
+    private final FlipSnapshotPrefetcher mSnapshotPrefetcher = new FlipSnapshotPrefetcher(this);
+    private FlipSnapshotCache mSnapshotCache;
+
+    // Application context the snapshot cache receives trim memory callbacks from.
+    private Context mAttachedContext;
+    private Display mAttachedDisplay;
+    private boolean mShadingEnabled = true;
+
+    private FlipListenerDispatcher mListenerDispatcher;
+
+    private FlipHardwareLayers mHardwareLayers;
+    private final View[] mLayerTargets = new View[3];
+    private int mScrollState = RecyclerView.SCROLL_STATE_IDLE;
+
+    private FlipMetrics mMetrics;
+    private FlipFrameTracker mFrameTracker;
+
+    private int mPrefetchPageCount = DEFAULT_PREFETCH_PAGE_COUNT;
+
+    private SavedState mPendingSavedState;
+
+    // Attached to the RecyclerView while the layout manager is attached to the window.
+    private final FlipSnapHelper mSnapHelper = new FlipSnapHelper();
+    private FlipFlingStrategy mFlingStrategy;
+
+    private boolean mRecycleChildrenOnDetach;
+
+    // Set while a FlipRecyclerView draws the flips, its pages need not be FlipLayout.
+    private boolean mCompositing;
 
     public FlipLayoutManager(Context context) {
         this(context, null, 0, 0);
@@ -53,7 +105,302 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager implements
     }
 
     public int getPage() {
-        return mPage;
+        return mPager.getPage();
+    }
+
+    /**
+     * Renders a flipping page once into a bitmap and draws both halves of the flip from it,
+     * instead of drawing the page hierarchy twice per frame. The snapshots of the attached
+     * pages are rendered ahead of time while the main thread is idle.
+     */
+    public void setSnapshotEnabled(boolean enabled) {
+        if (mSnapshotEnabled != enabled) {
+            mSnapshotEnabled = enabled;
+            invalidateChildren();
+            updateHardwareLayers();
+            if (enabled) {
+                mSnapshotPrefetcher.schedule();
+            }
+            else {
+                mSnapshotPrefetcher.cancel();
+                if (mSnapshotCache != null) {
+                    mSnapshotCache.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the cache that holds the page snapshots. By default snapshots may use up to an
+     * eighth of the maximum heap size.
+     */
+    public void setSnapshotCache(@NonNull FlipSnapshotCache cache) {
+        if (mSnapshotCache != cache) {
+            if (mSnapshotCache != null && mAttachedContext != null) {
+                mAttachedContext.unregisterComponentCallbacks(mSnapshotCache);
+            }
+            mSnapshotCache = cache;
+            if (mAttachedContext != null) {
+                mAttachedContext.registerComponentCallbacks(cache);
+            }
+            invalidateChildren();
+        }
+    }
+
+    @NonNull
+    public FlipSnapshotCache getSnapshotCache() {
+        if (mSnapshotCache == null) {
+            setSnapshotCache(new FlipSnapshotCache(
+                    (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8)));
+        }
+        return mSnapshotCache;
+    }
+
+    public boolean isSnapshotEnabled() {
+        return mSnapshotEnabled;
+    }
+
+    /**
+     * Darkens the flipping half with a gradient that follows the flip angle. Turning it off
+     * saves a half page fill per frame.
+     */
+    public void setShadingEnabled(boolean enabled) {
+        if (mShadingEnabled != enabled) {
+            mShadingEnabled = enabled;
+            invalidateChildren();
+        }
+    }
+
+    public boolean isShadingEnabled() {
+        return mShadingEnabled;
+    }
+
+    void scheduleSnapshots() {
+        if (mSnapshotEnabled) {
+            mSnapshotPrefetcher.schedule();
+        }
+    }
+
+    private void invalidateChildren() {
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child != null) {
+                invalidatePage(child);
+            }
+        }
+    }
+
+    /**
+     * A {@link FlipLayout} draws its own flip, any other page is drawn by the
+     * {@link FlipRecyclerView} it is in.
+     */
+    private static void invalidatePage(View child) {
+        if (child instanceof FlipLayout) {
+            child.invalidate();
+        }
+        else if (child.getParent() instanceof View) {
+            ((View) child.getParent()).invalidate();
+        }
+    }
+
+    void setCompositing(boolean compositing) {
+        mCompositing = compositing;
+    }
+
+    public void addOnFlipListener(@NonNull OnFlipListener listener) {
+        if (mListenerDispatcher == null) {
+            mListenerDispatcher = new FlipListenerDispatcher();
+        }
+        mListenerDispatcher.addListener(listener);
+        notifyFlip();
+    }
+
+    public void removeOnFlipListener(@NonNull OnFlipListener listener) {
+        if (mListenerDispatcher != null) {
+            mListenerDispatcher.removeListener(listener);
+        }
+    }
+
+    /**
+     * @return the scroll state of the flip, {@link RecyclerView#SCROLL_STATE_SETTLING} while
+     * it snaps to a page.
+     */
+    public int getFlipState() {
+        return mSnapHelper.isSettling() ?
+                RecyclerView.SCROLL_STATE_SETTLING : mScrollState;
+    }
+
+    private void notifyFlip() {
+        final FlipListenerDispatcher dispatcher = mListenerDispatcher;
+        if (dispatcher != null && dispatcher.hasListeners() && getItemCount() != 0) {
+            dispatcher.update(mPager.getPage(), getFlipState(), mPager.getOffsetFraction());
+        }
+    }
+
+    /**
+     * Called when a settle starts, waits for a layout or is stopped. The end of a settle is
+     * reported through {@link #onScrollStateChanged(int)}.
+     */
+    void onSettleChanged() {
+        notifyFlip();
+        updateHardwareLayers();
+    }
+
+    /**
+     * Promotes the content of the flipping page and its neighbours to hardware layers while
+     * a flip is dragged or settles, so each frame only transforms the layers instead of
+     * drawing the pages again. The current page is promoted first, then the page it flips
+     * towards. Layers are dropped once the flip is idle or the pages leave the window.
+     * <p>
+     * A page that is a {@link FlipLayout} draws its flip itself, so its single child gets the
+     * layer, a page with several children gets none. Pages in a {@link FlipRecyclerView} get
+     * the layer themselves. Nothing is promoted while snapshots are enabled.
+     *
+     * @param maxLayers the most layers held at once, 0 turns promotion off.
+     */
+    public void setHardwareLayerBudget(int maxLayers) {
+        if (maxLayers < 0) {
+            throw new IllegalArgumentException("maxLayers must not be negative: " + maxLayers);
+        }
+        if (mHardwareLayers != null) {
+            if (mHardwareLayers.getBudget() == maxLayers) {
+                return;
+            }
+            mHardwareLayers.demoteAll();
+        }
+        mHardwareLayers = maxLayers > 0 ? new FlipHardwareLayers(maxLayers) : null;
+        updateHardwareLayers();
+    }
+
+    public int getHardwareLayerBudget() {
+        return mHardwareLayers != null ? mHardwareLayers.getBudget() : 0;
+    }
+
+    private void updateHardwareLayers() {
+        final FlipHardwareLayers layers = mHardwareLayers;
+        if (layers == null) {
+            return;
+        }
+        if (mSnapshotEnabled || getFlipState() == RecyclerView.SCROLL_STATE_IDLE) {
+            layers.demoteAll();
+            return;
+        }
+
+        final View[] targets = mLayerTargets;
+        final int page = mPager.getPage();
+        final int side = mPager.getOffset() < 0 ? -1 : 1;
+        int count = 0;
+        count = addLayerTarget(targets, count, page);
+        count = addLayerTarget(targets, count, page + side);
+        count = addLayerTarget(targets, count, page - side);
+        layers.update(targets, count);
+
+        for (int i = 0; i < count; i++) {
+            targets[i] = null;
+        }
+    }
+
+    private int addLayerTarget(View[] targets, int count, int position) {
+        final View page = findViewByPosition(position);
+        if (page == null) {
+            return count;
+        }
+
+        View target = page;
+        if (page instanceof FlipLayout) {
+            target = page instanceof ViewGroup && ((ViewGroup) page).getChildCount() == 1 ?
+                    ((ViewGroup) page).getChildAt(0) : null;
+        }
+        if (target != null) {
+            targets[count++] = target;
+        }
+        return count;
+    }
+
+    @Override
+    public void onScrollStateChanged(int state) {
+        mSnapHelper.onScrollStateChanged(state);
+        mScrollState = state;
+        notifyFlip();
+        updateHardwareLayers();
+    }
+
+    /**
+     * Sets how far a fling may go, null settles every fling on a neighbour page at most.
+     *
+     * @see FlipMultiPageFlingStrategy
+     */
+    public void setFlingStrategy(@Nullable FlipFlingStrategy strategy) {
+        mFlingStrategy = strategy;
+    }
+
+    @Nullable
+    public FlipFlingStrategy getFlingStrategy() {
+        return mFlingStrategy;
+    }
+
+    public void setMetrics(@Nullable FlipMetrics metrics) {
+        mMetrics = metrics;
+        if (mFrameTracker != null) {
+            mFrameTracker.setDelegate(metrics);
+        }
+    }
+
+    @Nullable
+    public FlipMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Reports the frame timing of every flip gesture to {@code listener}, pass null to stop.
+     */
+    public void setFrameStatsListener(@Nullable FlipFrameStats.Listener listener) {
+        if (mFrameTracker != null) {
+            mFrameTracker.cancel();
+            mFrameTracker = null;
+        }
+        if (listener != null) {
+            mFrameTracker = new FlipFrameTracker(listener);
+            mFrameTracker.setDelegate(mMetrics);
+            if (mAttachedDisplay != null) {
+                mFrameTracker.setRefreshRate(mAttachedDisplay.getRefreshRate());
+            }
+        }
+    }
+
+    /**
+     * @return where the stages are measured, the frame tracker passes them on to the
+     * metrics set with {@link #setMetrics(FlipMetrics)}.
+     */
+    FlipMetrics getStageMetrics() {
+        return mFrameTracker != null ? mFrameTracker : mMetrics;
+    }
+
+    /**
+     * Sets how many pages beyond {@code page + 1} (or {@code page - 1}) in the flip direction
+     * are created and bound ahead of time by RecyclerView's prefetcher.
+     */
+    public void setPrefetchPageCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("prefetch page count must not be negative");
+        }
+        mPrefetchPageCount = count;
+    }
+
+    public int getPrefetchPageCount() {
+        return mPrefetchPageCount;
+    }
+
+    /**
+     * Recycles the attached pages when the RecyclerView is detached from the window, so
+     * other lists sharing the {@link RecyclerView.RecycledViewPool} can use them.
+     */
+    public void setRecycleChildrenOnDetach(boolean recycleChildrenOnDetach) {
+        mRecycleChildrenOnDetach = recycleChildrenOnDetach;
+    }
+
+    public boolean getRecycleChildrenOnDetach() {
+        return mRecycleChildrenOnDetach;
     }
 
     @Override
@@ -83,27 +430,151 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager implements
     @Override
     public void onAttachedToWindow(RecyclerView view) {
         super.onAttachedToWindow(view);
-        new FlipSnapHelper().attachToRecyclerView(view);
+        mCompositing = view instanceof FlipRecyclerView;
+        mAttachedContext = view.getContext().getApplicationContext();
+        if (mSnapshotCache != null) {
+            mAttachedContext.registerComponentCallbacks(mSnapshotCache);
+        }
+        mAttachedDisplay = view.getDisplay();
+        if (mFrameTracker != null && mAttachedDisplay != null) {
+            mFrameTracker.setRefreshRate(mAttachedDisplay.getRefreshRate());
+        }
+        mSnapHelper.attachToRecyclerView(view);
+    }
+
+    @Override
+    public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
+        super.onDetachedFromWindow(view, recycler);
+        mSnapHelper.attachToRecyclerView(null);
+        mSnapshotPrefetcher.cancel();
+        if (mSnapshotCache != null && mAttachedContext != null) {
+            mAttachedContext.unregisterComponentCallbacks(mSnapshotCache);
+        }
+        mAttachedContext = null;
+        mAttachedDisplay = null;
+        if (mFrameTracker != null) {
+            mFrameTracker.cancel();
+        }
+        if (mListenerDispatcher != null) {
+            mListenerDispatcher.cancel();
+        }
+        if (mHardwareLayers != null) {
+            mHardwareLayers.demoteAll();
+        }
+        if (mRecycleChildrenOnDetach) {
+            removeAndRecycleAllViews(recycler);
+            recycler.clear();
+        }
+    }
+
+    private void stopSettle() {
+        mSnapHelper.stop();
     }
 
     @Override
     public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        final FlipMetrics metrics = getStageMetrics();
+        final long start = metrics != null ? metrics.begin(FlipMetrics.STAGE_LAYOUT) : 0;
+
+        layoutPages(recycler, state);
+
+        if (metrics != null) {
+            metrics.end(FlipMetrics.STAGE_LAYOUT, start);
+        }
+    }
+
+    private void layoutPages(RecyclerView.Recycler recycler, RecyclerView.State state) {
         final int itemCount = state.getItemCount();
 
-        mItemLength = mOrientation == RecyclerView.VERTICAL ? getHeight() : getWidth();
-        detachAndScrapAttachedViews(recycler);
-        if (itemCount == 0) {
-            mPage = 0;
-            mOffset = 0;
-        } else {
-            if (mPage >= itemCount) {
-                mPage = itemCount - 1;
-                mOffset = 0;
-            }
+        mPager.setItemLength(mOrientation == RecyclerView.VERTICAL ? getHeight() : getWidth());
+        if (mPendingSavedState != null && itemCount != 0) {
+            mPager.setPage(mPendingSavedState.mPage, mPendingSavedState.mOffsetFraction);
+            mPendingSavedState = null;
+        }
+        if (mLayoutWidth != getWidth() || mLayoutHeight != getHeight() || hasInvalidChildren()) {
+            mLayoutWidth = getWidth();
+            mLayoutHeight = getHeight();
+            detachAndScrapAttachedViews(recycler);
+        }
+        mPager.clamp(itemCount);
+        if (itemCount != 0) {
             fill(recycler, state);
+            notifyFlip();
+            updateHardwareLayers();
+        }
+    }
+
+    @Override
+    public void onLayoutCompleted(RecyclerView.State state) {
+        super.onLayoutCompleted(state);
+        mSnapHelper.onLayoutCompleted();
+    }
+
+    /**
+     * All pages share the same bounds, so there is nothing for a pre-layout to predict. The
+     * item animator fades pages that appear or disappear in place.
+     */
+    @Override
+    public boolean supportsPredictiveItemAnimations() {
+        return false;
+    }
+
+    // Adapter updates only shift the page to follow the current item. Attached pages are
+    // repositioned by RecyclerView itself, so an update outside the page window neither
+    // scraps nor binds anything in the following layout.
+
+    @Override
+    public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
+        if (getChildCount() != 0) {
+            mPager.onItemsAdded(positionStart, itemCount);
+        }
+    }
+
+    @Override
+    public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
+        if (getChildCount() != 0) {
+            mPager.onItemsRemoved(positionStart, itemCount);
+        }
+    }
+
+    @Override
+    public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
+        if (getChildCount() != 0) {
+            mPager.onItemsMoved(from, to, itemCount);
+        }
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        if (mPendingSavedState != null) {
+            return new SavedState(mPendingSavedState);
+        }
+        return new SavedState(mPager.getPage(), mPager.getOffsetFraction());
+    }
+
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        if (state instanceof SavedState) {
+            mPendingSavedState = (SavedState) state;
+            requestLayout();
         }
     }
 
+    private boolean hasInvalidChildren() {
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child == null) {
+                continue;
+            }
+
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            if (lp.isItemChanged() || lp.isItemRemoved() || lp.isViewInvalid()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public boolean isAutoMeasureEnabled() {
         return false;
@@ -130,109 +601,145 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager implements
     }
 
     private int scrollBy(int delta, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        final FlipMetrics metrics = getStageMetrics();
+        final long start = metrics != null ? metrics.begin(FlipMetrics.STAGE_SCROLL) : 0;
 
-        final int itemCount = state.getItemCount();
-        final int itemLength = mItemLength;
-
-        final int oldOffset = mOffset;
-        final int oldPage = mPage;
-
-        int offset = oldOffset;
-        int page = oldPage;
-
-        int logicMaxOffset = itemLength * (itemCount - 1);
-        int logicOffset = page * itemLength + offset;
+        final int consumed = scrollPages(delta, recycler, state);
 
-        int newLogicOffset = delta + logicOffset;
-        if (newLogicOffset < 0) {
-            newLogicOffset = 0;
-        }
-        else if (newLogicOffset > logicMaxOffset) {
-            newLogicOffset = logicMaxOffset;
+        if (metrics != null) {
+            metrics.end(FlipMetrics.STAGE_SCROLL, start);
         }
+        return consumed;
+    }
 
-        final int consumed = newLogicOffset - logicOffset;
+    private int scrollPages(int delta, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        final int oldPage = mPager.getPage();
 
-        if (consumed != 0) {
-            page = newLogicOffset / itemLength;
-            offset = newLogicOffset % itemLength;
+        final int consumed = mPager.scrollBy(delta, state.getItemCount());
 
-            if (Math.abs(offset) >= (itemLength >> 1)) {
-                if (offset > 0) {
-                    offset -= itemLength;
-                    page += 1;
-                }
-                else {
-                    offset += itemLength;
-                    page -= 1;
-                }
+        if (consumed != 0) {
+            if (mFrameTracker != null) {
+                mFrameTracker.onScrolled();
             }
-
-            mOffset = offset;
-            mPage = page;
-
+            final int page = mPager.getPage();
             if (oldPage != page) {
                 fill(recycler, state);
             }
             else {
                 updateViewByPosition(page);
             }
+            notifyFlip();
+            updateHardwareLayers();
         }
         return consumed;
     }
 
     private void fill(RecyclerView.Recycler recycler, RecyclerView.State state) {
-        if (state.getItemCount() == 0) {
+        final FlipMetrics metrics = getStageMetrics();
+        final long start = metrics != null ? metrics.begin(FlipMetrics.STAGE_FILL) : 0;
+
+        fillPages(recycler, state);
+
+        if (metrics != null) {
+            metrics.end(FlipMetrics.STAGE_FILL, start);
+        }
+    }
+
+    private void fillPages(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        final int itemCount = state.getItemCount();
+        if (itemCount == 0) {
             removeAndRecycleAllViews(recycler);
             return;
         }
 
-        final int[] positionSet = mPositionSet;
+        final int page = mPager.getPage();
 
-        positionSet[0] = mPage - 1;
-        positionSet[1] = mPage + 1;
-        positionSet[2] = mPage;
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            View child = getChildAt(i);
+            if (child == null) {
+                continue;
+            }
 
-        int validChildrenCount = 0;
+            int position = getPosition(child);
+            if (position >= itemCount || Math.abs(position - page) > 1) {
+                removeAndRecycleViewAt(i, recycler);
+            }
+        }
+
+        final int[] positionSet = mPositionSet;
+
+        positionSet[0] = page - 1;
+        positionSet[1] = page + 1;
+        positionSet[2] = page;
 
         for (int position : positionSet) {
-            if (position >= 0 && position < state.getItemCount()) {
-                validChildrenCount++;
+            View child = findViewByPosition(position);
+            if (child != null) {
+                updateChild(child, position);
+                if (child.isLayoutRequested()) {
+                    layoutChild(child);
+                }
+                continue;
             }
 
-            View layout = fromRecycler(recycler, state, position);
-            if (layout == null) {
+            child = fromRecycler(recycler, state, position);
+            if (child == null) {
                 continue;
             }
 
-            layoutChild(layout);
+            addView(child, position == page ? -1 : 0);
+            layoutChild(child);
         }
 
-        int invalidChildrenCount = getChildCount() - validChildrenCount;
-        for (int i = 0; i < invalidChildrenCount; i++) {
-            View c = getChildAt(0);
-            if (c == null) {
-                break;
-            }
-            removeAndRecycleView(c, recycler);
+        View current = findViewByPosition(page);
+        if (current != null && getChildAt(getChildCount() - 1) != current) {
+            detachView(current);
+            attachView(current);
         }
+        mVisibleSide = Integer.signum(mPager.getOffset());
+        scheduleSnapshots();
     }
 
-    private void layoutChild(View layout) {
-        addView(layout);
-        measureChildWithMargins(layout, 0, 0);
-        layoutDecoratedWithMargins(layout, getPaddingStart(), getPaddingTop(),
+    private void layoutChild(View child) {
+        measureChildWithMargins(child, 0, 0);
+        layoutDecoratedWithMargins(child, getPaddingStart(), getPaddingTop(),
                 getWidth() - getPaddingEnd(),
-                getHeight() - getPaddingEnd());
+                getHeight() - getPaddingBottom());
+    }
+
+    private void updateChild(View child, int position) {
+        if (updateLayoutParams(child, position)) {
+            invalidatePage(child);
+        }
+
+        // Hidden pages are INVISIBLE, not GONE: only switching to or from GONE requests a
+        // layout, and that would run in the middle of the gesture.
+        final int page = mPager.getPage();
+        final int offset = mPager.getOffset();
+        if (offset == 0) {
+            child.setVisibility(position == page ? View.VISIBLE : View.INVISIBLE);
+        }
+        else if (offset > 0) {
+            child.setVisibility(position == page - 1 ? View.INVISIBLE : View.VISIBLE);
+        }
+        else {
+            child.setVisibility(position == page + 1 ? View.INVISIBLE : View.VISIBLE);
+        }
     }
 
     private void updateViewByPosition(int position) {
         View c = findViewByPosition(position);
-        if (c != null) {
-            updateLayoutParams(c, position);
-            c.invalidate();
+        if (c != null && updateLayoutParams(c, position)) {
+            invalidatePage(c);
         }
 
+        final int offset = mPager.getOffset();
+        final int side = Integer.signum(offset);
+        if (side == mVisibleSide) {
+            return;
+        }
+        mVisibleSide = side;
+
         for (int i = 0; i < getChildCount(); i++) {
             View child = getChildAt(i);
             if (child == null) {
@@ -241,10 +748,10 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager implements
 
             int cp = getPosition(child);
             if (cp < position) {
-                child.setVisibility(mOffset < 0 ? View.VISIBLE : View.GONE);
+                child.setVisibility(offset < 0 ? View.VISIBLE : View.INVISIBLE);
             }
             else if (cp > position) {
-                child.setVisibility(mOffset > 0 ? View.VISIBLE : View.GONE);
+                child.setVisibility(offset > 0 ? View.VISIBLE : View.INVISIBLE);
             }
         }
     }
@@ -252,94 +759,181 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager implements
     private View fromRecycler(RecyclerView.Recycler recycler, RecyclerView.State state, int position) {
 
         if (position < 0 || position >= state.getItemCount() ||
-                Math.abs(position - mPage) > 1) {
+                Math.abs(position - mPager.getPage()) > 1) {
             return null;
         }
 
+        final FlipMetrics metrics = getStageMetrics();
+        final long start = metrics != null ? metrics.begin(FlipMetrics.STAGE_BIND) : 0;
+
         View view = recycler.getViewForPosition(position);
-        if (view instanceof FlipLayout) {
 
-            updateLayoutParams(view, position);
+        if (metrics != null) {
+            metrics.end(FlipMetrics.STAGE_BIND, start);
+        }
 
-            if (mOffset == 0) {
-                view.setVisibility(position == mPage ? View.VISIBLE : View.GONE);
-            }
-            else if (mOffset > 0) {
-                view.setVisibility(position == mPage - 1 ? View.GONE : View.VISIBLE);
-            }
-            else {
-                view.setVisibility(position == mPage + 1 ? View.GONE : View.VISIBLE);
-            }
+        if (view instanceof FlipLayout || mCompositing) {
+            updateChild(view, position);
             return view;
         }
         else {
-            throw new RuntimeException("FlipLayoutManager child must be FlipLayout");
+            throw new RuntimeException(
+                    "FlipLayoutManager child must be FlipLayout outside of a FlipRecyclerView");
         }
     }
 
-    private void updateLayoutParams(View view, int position) {
+    private boolean updateLayoutParams(View view, int position) {
         final LayoutParams lp = (LayoutParams) view.getLayoutParams();
+        final float degree = position == mPager.getPage() ? computeDegree() : 0;
+        if (lp.mOrientation == mOrientation && lp.mDegree == degree) {
+            return false;
+        }
         lp.mOrientation = mOrientation;
-        lp.mDegree = position == mPage ? (int) (((float) mOffset / mItemLength) * 180.f) : 0;
+        lp.mDegree = degree;
+        return true;
+    }
+
+    private float computeDegree() {
+        final int itemLength = mPager.getItemLength();
+        if (itemLength <= 0) {
+            return 0;
+        }
+        final float degree = (float) mPager.getOffset() / itemLength * 180.f;
+        return Math.round(degree * DEGREE_STEPS) / DEGREE_STEPS;
+    }
+
+    @Override
+    public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state,
+                                                 LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        final int delta = mOrientation == HORIZONTAL ? dx : dy;
+        final int itemCount = state.getItemCount();
+        final int itemLength = mPager.getItemLength();
+        if (delta == 0 || itemCount == 0 || itemLength <= 0) {
+            return;
+        }
+
+        final int direction = delta > 0 ? 1 : -1;
+        final int pageCount = mPrefetchPageCount +
+                (int) Math.min(itemCount, (long) Math.abs(delta) * PREFETCH_LOOKAHEAD_FRAMES / itemLength);
+
+        // Distance left until the page index changes in the flip direction.
+        final int turnDistance = Math.max(0, (itemLength >> 1) - direction * mPager.getOffset());
+        final int page = mPager.getPage();
+
+        for (int i = 0; i < pageCount; i++) {
+            final long position = page + (long) direction * (i + 2);
+            if (position < 0 || position >= itemCount) {
+                break;
+            }
+            layoutPrefetchRegistry.addPosition((int) position,
+                    FlipPager.clampToInt(turnDistance + (long) i * itemLength));
+        }
+    }
+
+    @Override
+    public void collectInitialPrefetchPositions(int adapterItemCount,
+                                                LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        final int page = mPager.getPage();
+        for (long position = page - 1L; position <= page + 1L; position++) {
+            if (position >= 0 && position < adapterItemCount) {
+                layoutPrefetchRegistry.addPosition((int) position, 0);
+            }
+        }
     }
 
     @Override
     public void scrollToPosition(int position) {
-        mPage = position;
-        mOffset = 0;
+        stopSettle();
+        mPendingSavedState = null;
+        mPager.setPage(position);
         requestLayout();
     }
 
     @Override
     public void smoothScrollToPosition(RecyclerView recyclerView, RecyclerView.State state, int position) {
-        FlipSmoothScroller flipSmoothScroller = new FlipSmoothScroller(recyclerView.getContext());
-        flipSmoothScroller.setTargetPosition(position);
-        startSmoothScroll(flipSmoothScroller);
+        if (position < 0 || position >= state.getItemCount()) {
+            return;
+        }
+        if (!mSnapHelper.isAttached()) {
+            scrollToPosition(position);
+            return;
+        }
+
+        // Jumps to the neighbour of a distant target and animates the last flip only, so the
+        // pages in between are never bound or drawn.
+        mSnapHelper.smoothScrollToPage(position, jumpNextToPage(position));
     }
 
     final int[] calculateDistanceToFinalSnap(View targetView) {
-        System.out.println("HW::calculateDistanceToFinalSnap");
-        int[] out = new int[2];
+        final FlipMetrics metrics = getStageMetrics();
+        final long start = metrics != null ? metrics.begin(FlipMetrics.STAGE_SNAP) : 0;
+
+        final int[] out = mSnapDistance;
+        out[0] = 0;
+        out[1] = 0;
 
         int targetPosition = getPosition(targetView);
-        int distance = (targetPosition - mPage) * mItemLength - mOffset;
+        int distance = FlipPager.clampToInt(mPager.distanceTo(targetPosition));
         if (canScrollHorizontally()) {
             out[0] = distance;
         }
         else if (canScrollVertically()) {
             out[1] = distance;
         }
+
+        if (metrics != null) {
+            metrics.end(FlipMetrics.STAGE_SNAP, start);
+        }
         return out;
     }
 
-    final View findSnapView() {
-        System.out.println("HW::findSnapView");
-        if (mPage >= 0 && mPage < getItemCount()) {
-            return findViewByPosition(mPage);
+    /**
+     * Moves straight next to a page more than one page away, keeping the current flip, so
+     * settling on it binds neither the pages in between nor flips through them.
+     *
+     * @return true if the manager jumped, the new pages are filled by the next layout.
+     */
+    final boolean jumpNextToPage(int page) {
+        final int current = mPager.getPage();
+        final int neighbour;
+        if (page > current + 1) {
+            neighbour = page - 1;
         }
-        return null;
+        else if (page < current - 1) {
+            neighbour = page + 1;
+        }
+        else {
+            return false;
+        }
+        mPendingSavedState = null;
+        mPager.setPage(neighbour, mPager.getOffsetFraction());
+        requestLayout();
+        return true;
+    }
+
+    final int calculateDistanceToPage(int page) {
+        return FlipPager.clampToInt(mPager.distanceTo(page));
     }
 
     final int findTargetSnapPosition(int[] scrollDistance) {
-        System.out.println("HW::findTargetSnapPosition");
+        final FlipMetrics metrics = getStageMetrics();
+        final long start = metrics != null ? metrics.begin(FlipMetrics.STAGE_SNAP) : 0;
 
         final int itemCount = getItemCount();
-        if (itemCount == 0) {
-            return RecyclerView.NO_POSITION;
+        final int targetPosition;
+        if (mFlingStrategy == null || itemCount == 0 || mPager.getItemLength() <= 0) {
+            targetPosition = mPager.findTargetPage(scrollDistance[mOrientation], itemCount);
+        }
+        else {
+            targetPosition = mFlingStrategy.findTargetPage(mPager.getPage(),
+                    mPager.getOffsetFraction(),
+                    (float) scrollDistance[mOrientation] / mPager.getItemLength(), itemCount);
         }
 
-        final int newOffset = mOffset + scrollDistance[mOrientation];
-
-        int newPage = mPage;
-        if (Math.abs(newOffset) > (mItemLength >> 1)) {
-            if (newOffset > 0 && newPage < (itemCount - 1)) {
-                newPage += 1;
-            }
-            else if (newOffset < 0 && newPage > 0) {
-                newPage -= 1;
-            }
+        if (metrics != null) {
+            metrics.end(FlipMetrics.STAGE_SNAP, start);
         }
-        return newPage;
+        return targetPosition;
     }
 
     @Nullable
@@ -350,17 +944,45 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager implements
             return null;
         }
 
-        int distance = (targetPosition - mPage) * mItemLength - mOffset;
+        final float distance = mPager.distanceTo(targetPosition);
         if (mOrientation == HORIZONTAL) {
-            return new PointF(distance, 0);
+            mScrollVector.set(distance, 0);
         } else {
-            return new PointF(0, distance);
+            mScrollVector.set(0, distance);
+        }
+        return mScrollVector;
+    }
+
+    /**
+     * Observes the flip. Every callback is made at most once per frame, with the latest
+     * state of that frame.
+     */
+    public abstract static class OnFlipListener {
+
+        /**
+         * @param state one of the {@link RecyclerView} scroll states, settling while the flip
+         *              snaps to a page.
+         */
+        public void onFlipStateChanged(int state) {
+        }
+
+        public void onPageSelected(int page) {
+        }
+
+        /**
+         * @param position       the page before the fold.
+         * @param positionOffset how far the flip from {@code position} to
+         *                       {@code position + 1} went, within [0, 1).
+         * @param direction      {@link #DIRECTION_NEXT} or {@link #DIRECTION_PREVIOUS} if the
+         *                       flip moved since the last call, 0 otherwise.
+         */
+        public void onFlipped(int position, float positionOffset, int direction) {
         }
     }
 
     public static class LayoutParams extends RecyclerView.LayoutParams {
 
-        int mDegree;
+        float mDegree;
         int mOrientation;
 
         public LayoutParams(Context c, AttributeSet attrs) {
@@ -393,4 +1015,48 @@ public class FlipLayoutManager extends RecyclerView.LayoutManager implements
             height = MATCH_PARENT;
         }
     }
+
+    public static class SavedState implements Parcelable {
+
+        int mPage;
+        float mOffsetFraction;
+
+        SavedState(int page, float offsetFraction) {
+            mPage = page;
+            mOffsetFraction = offsetFraction;
+        }
+
+        SavedState(SavedState other) {
+            mPage = other.mPage;
+            mOffsetFraction = other.mOffsetFraction;
+        }
+
+        SavedState(Parcel in) {
+            mPage = in.readInt();
+            mOffsetFraction = in.readFloat();
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeInt(mPage);
+            dest.writeFloat(mOffsetFraction);
+        }
+
+        public static final Creator<SavedState> CREATOR = new Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import android.view.Choreographer;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+
+/**
+ * Coalesces the page, state and progress updates of a {@link FlipLayoutManager} and passes
+ * what changed on to its {@link FlipLayoutManager.OnFlipListener}s once per frame.
+ */
+final class FlipListenerDispatcher implements Choreographer.FrameCallback {
+
+    private final ArrayList<FlipLayoutManager.OnFlipListener> mListeners = new ArrayList<>();
+
+    private int mPage = RecyclerView.NO_POSITION;
+    private int mState = RecyclerView.SCROLL_STATE_IDLE;
+    private float mFraction;
+
+    private int mDispatchedPage = RecyclerView.NO_POSITION;
+    private int mDispatchedState = RecyclerView.SCROLL_STATE_IDLE;
+    private float mDispatchedFraction;
+
+    private boolean mPosted;
+
+    void addListener(FlipLayoutManager.OnFlipListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    void removeListener(FlipLayoutManager.OnFlipListener listener) {
+        mListeners.remove(listener);
+        if (mListeners.isEmpty()) {
+            cancel();
+        }
+    }
+
+    boolean hasListeners() {
+        return !mListeners.isEmpty();
+    }
+
+    void update(int page, int state, float fraction) {
+        mPage = page;
+        mState = state;
+        mFraction = fraction;
+        if (!mPosted && (page != mDispatchedPage || state != mDispatchedState ||
+                fraction != mDispatchedFraction)) {
+            mPosted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void cancel() {
+        if (mPosted) {
+            mPosted = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mPosted = false;
+        dispatch();
+    }
+
+    void dispatch() {
+        final ArrayList<FlipLayoutManager.OnFlipListener> listeners = mListeners;
+
+        final int state = mState;
+        if (state != mDispatchedState) {
+            mDispatchedState = state;
+            for (int i = listeners.size() - 1; i >= 0; i--) {
+                listeners.get(i).onFlipStateChanged(state);
+            }
+        }
+
+        final int page = mPage;
+        final float fraction = mFraction;
+        final int lastPage = mDispatchedPage;
+        final float lastFraction = mDispatchedFraction;
+        if (page == lastPage && fraction == lastFraction) {
+            return;
+        }
+        mDispatchedPage = page;
+        mDispatchedFraction = fraction;
+
+        if (page != lastPage) {
+            for (int i = listeners.size() - 1; i >= 0; i--) {
+                listeners.get(i).onPageSelected(page);
+            }
+        }
+
+        int direction = 0;
+        if (lastPage != RecyclerView.NO_POSITION) {
+            final float delta = (page - lastPage) + (fraction - lastFraction);
+            direction = delta > 0 ? FlipLayoutManager.DIRECTION_NEXT :
+                    delta < 0 ? FlipLayoutManager.DIRECTION_PREVIOUS : 0;
+        }
+
+        // The page offset is within [-0.5, 0.5), position is the page before the fold.
+        final int position = fraction < 0 ? page - 1 : page;
+        final float positionOffset = fraction < 0 ? 1 + fraction : fraction;
+        for (int i = listeners.size() - 1; i >= 0; i--) {
+            listeners.get(i).onFlipped(position, positionOffset, direction);
+        }
+    }
+}
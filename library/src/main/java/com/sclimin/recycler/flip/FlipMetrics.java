@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import androidx.annotation.IntDef;
+import androidx.tracing.Trace;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Counts and times the work done by {@link FlipLayoutManager} and {@link FlipLayoutHelper}.
+ * Every stage is also emitted as an {@code androidx.tracing} section. Nothing is measured or
+ * traced until an instance is registered with {@link FlipLayoutManager#setMetrics(FlipMetrics)}.
+ * Subclasses may override {@link #onStage(int, long)} to forward the samples.
+ */
+public class FlipMetrics {
+
+    public static final int STAGE_FILL = 0;
+    public static final int STAGE_SCROLL = 1;
+    public static final int STAGE_BIND = 2;
+    public static final int STAGE_SNAP = 3;
+    public static final int STAGE_DRAW = 4;
+    public static final int STAGE_LAYOUT = 5;
+
+    static final int STAGE_COUNT = 6;
+
+    @IntDef({STAGE_FILL, STAGE_SCROLL, STAGE_BIND, STAGE_SNAP, STAGE_DRAW, STAGE_LAYOUT})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Stage {
+    }
+
+    private static final String[] SECTION_NAMES = {
+            "FlipLayoutManager#fill",
+            "FlipLayoutManager#scrollBy",
+            "FlipLayoutManager#bind",
+            "FlipLayoutManager#snap",
+            "FlipLayoutHelper#draw",
+            "FlipLayoutManager#onLayoutChildren"
+    };
+
+    private final long[] mCounts = new long[STAGE_COUNT];
+    private final long[] mTotalNanos = new long[STAGE_COUNT];
+    private final long[] mMaxNanos = new long[STAGE_COUNT];
+
+    public void onStage(@Stage int stage, long durationNanos) {
+        mCounts[stage]++;
+        mTotalNanos[stage] += durationNanos;
+        if (durationNanos > mMaxNanos[stage]) {
+            mMaxNanos[stage] = durationNanos;
+        }
+    }
+
+    public long getCount(@Stage int stage) {
+        return mCounts[stage];
+    }
+
+    public long getTotalNanos(@Stage int stage) {
+        return mTotalNanos[stage];
+    }
+
+    public long getMaxNanos(@Stage int stage) {
+        return mMaxNanos[stage];
+    }
+
+    public void reset() {
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            mCounts[i] = 0;
+            mTotalNanos[i] = 0;
+            mMaxNanos[i] = 0;
+        }
+    }
+
+    final long begin(@Stage int stage) {
+        Trace.beginSection(SECTION_NAMES[stage]);
+        onBegin(stage);
+        return System.nanoTime();
+    }
+
+    /**
+     * Called when a stage starts. Stages that start before the last one ended run inside it,
+     * e.g. fill inside scroll or layout, and bind inside fill.
+     */
+    void onBegin(@Stage int stage) {
+    }
+
+    final void end(@Stage int stage, long startNanos) {
+        final long duration = System.nanoTime() - startNanos;
+        Trace.endSection();
+        onStage(stage, duration);
+    }
+}
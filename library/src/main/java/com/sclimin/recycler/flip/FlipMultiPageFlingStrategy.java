@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+/**
+ * Lets a fast fling skip ahead: the fling settles on the page nearest to where it would
+ * stop, at most {@code maxPages} away from the current page. A fling that does not reach
+ * past the middle of the next page still settles on the current one.
+ * <p>
+ * The pages in between are never bound, the settle jumps next to the target page and
+ * flips the last page only.
+ */
+public final class FlipMultiPageFlingStrategy implements FlipFlingStrategy {
+
+    private final int mMaxPages;
+
+    public FlipMultiPageFlingStrategy(int maxPages) {
+        if (maxPages < 1) {
+            throw new IllegalArgumentException("maxPages must be at least 1: " + maxPages);
+        }
+        mMaxPages = maxPages;
+    }
+
+    public int getMaxPages() {
+        return mMaxPages;
+    }
+
+    @Override
+    public int findTargetPage(int page, float offsetFraction, float flingPages, int itemCount) {
+        final float pages = offsetFraction + flingPages;
+        // Past the middle of a page counts as reaching it, as for single page flings.
+        final int delta = (int) Math.min(mMaxPages, Math.ceil(Math.abs(pages) - 0.5f));
+
+        final long target = pages < 0 ? (long) page - delta : (long) page + delta;
+        return (int) Math.max(0, Math.min(itemCount - 1, target));
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseIntArray;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A {@link RecyclerView.RecycledViewPool} shared by flip lists that can be filled ahead of
+ * time with pages inflated on a background thread. The pool keeps at most
+ * {@link #PAGE_WINDOW} pages per view type for every attached list, which is all a
+ * {@link FlipLayoutManager} ever has attached.
+ * <p>
+ * Pages are created with {@link RecyclerView.Adapter#createViewHolder(android.view.ViewGroup, int)}
+ * off the main thread, so {@code onCreateViewHolder} must not touch anything but the new
+ * views.
+ */
+public final class FlipPagePool {
+
+    public static final int PAGE_WINDOW = 3;
+
+    private static final String TAG = "FlipPagePool";
+
+    private static Executor sDefaultExecutor;
+
+    private final RecyclerView.RecycledViewPool mPool = new PagePool();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Executor mExecutor;
+
+    // Pages still being inflated, by view type. Holds every view type the pool has seen, so
+    // the capacity can be updated for all of them.
+    private final SparseIntArray mPending = new SparseIntArray();
+
+    private int mRecyclerViewCount;
+
+    public FlipPagePool() {
+        this(getDefaultExecutor());
+    }
+
+    public FlipPagePool(@NonNull Executor executor) {
+        mExecutor = executor;
+    }
+
+    @NonNull
+    public RecyclerView.RecycledViewPool getRecycledViewPool() {
+        return mPool;
+    }
+
+    /**
+     * Makes {@code recyclerView} use this pool. A {@link FlipLayoutManager} also hands its pages
+     * back to the pool when the list is detached from the window.
+     */
+    @MainThread
+    public void attach(@NonNull RecyclerView recyclerView) {
+        if (recyclerView.getRecycledViewPool() == mPool) {
+            return;
+        }
+        recyclerView.setRecycledViewPool(mPool);
+        final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (layoutManager instanceof FlipLayoutManager) {
+            ((FlipLayoutManager) layoutManager).setRecycleChildrenOnDetach(true);
+        }
+        mRecyclerViewCount++;
+        updateCapacity();
+    }
+
+    @MainThread
+    public void detach(@NonNull RecyclerView recyclerView) {
+        if (recyclerView.getRecycledViewPool() != mPool) {
+            return;
+        }
+        recyclerView.setRecycledViewPool(null);
+        mRecyclerViewCount--;
+        updateCapacity();
+    }
+
+    /**
+     * Inflates pages of {@code viewType} with the adapter of {@code recyclerView} until the pool
+     * holds {@code count} of them, or as many as it can keep.
+     */
+    @MainThread
+    public void warmUp(@NonNull RecyclerView recyclerView, int viewType, int count) {
+        final RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+        if (adapter == null) {
+            throw new IllegalStateException("RecyclerView has no adapter");
+        }
+
+        final int capacity = getCapacity();
+        addViewType(viewType);
+
+        final int pending = mPending.get(viewType);
+        final int missing = Math.min(count, capacity) - mPool.getRecycledViewCount(viewType) - pending;
+        if (missing <= 0) {
+            return;
+        }
+
+        mPending.put(viewType, pending + missing);
+        for (int i = 0; i < missing; i++) {
+            mExecutor.execute(new WarmUpTask(adapter, recyclerView, viewType));
+        }
+    }
+
+    private void addViewType(int viewType) {
+        if (mPending.indexOfKey(viewType) < 0) {
+            mPending.put(viewType, 0);
+            mPool.setMaxRecycledViews(viewType, getCapacity());
+        }
+    }
+
+    private int getCapacity() {
+        return PAGE_WINDOW * Math.max(1, mRecyclerViewCount);
+    }
+
+    private void updateCapacity() {
+        final int capacity = getCapacity();
+        for (int i = 0; i < mPending.size(); i++) {
+            mPool.setMaxRecycledViews(mPending.keyAt(i), capacity);
+        }
+    }
+
+    private static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable r) {
+                    final Thread thread = new Thread(r, TAG);
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return sDefaultExecutor;
+    }
+
+    /**
+     * Inflates one page on the executor, then runs again on the main thread to put it into
+     * the pool.
+     */
+    private final class WarmUpTask implements Runnable {
+
+        private final RecyclerView.Adapter<?> mAdapter;
+        private final RecyclerView mParent;
+        private final int mViewType;
+
+        private RecyclerView.ViewHolder mHolder;
+        private boolean mCreated;
+
+        WarmUpTask(RecyclerView.Adapter<?> adapter, RecyclerView parent, int viewType) {
+            mAdapter = adapter;
+            mParent = parent;
+            mViewType = viewType;
+        }
+
+        @Override
+        public void run() {
+            if (!mCreated) {
+                try {
+                    mHolder = mAdapter.createViewHolder(mParent, mViewType);
+                }
+                catch (RuntimeException e) {
+                    // Warming up is optional. The page is created again on the main thread
+                    // when the list needs it, where an adapter bug surfaces as usual.
+                    Log.w(TAG, "Could not create a page of view type " + mViewType + " ahead of time", e);
+                }
+                finally {
+                    // No longer pending even if the page could not be inflated.
+                    mCreated = true;
+                    mHandler.post(this);
+                }
+            }
+            else {
+                mPending.put(mViewType, mPending.get(mViewType) - 1);
+                if (mHolder != null) {
+                    mPool.putRecycledView(mHolder);
+                }
+            }
+        }
+    }
+
+    /**
+     * Caps every view type at the capacity of the pool, not only the warmed up ones.
+     */
+    private final class PagePool extends RecyclerView.RecycledViewPool {
+
+        @Override
+        public void putRecycledView(RecyclerView.ViewHolder scrap) {
+            addViewType(scrap.getItemViewType());
+            super.putRecycledView(scrap);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+/**
+ * Page and offset physics of {@link FlipLayoutManager}. The offset is kept relative to the
+ * current page, within half a page length, and absolute positions are only formed in
+ * {@code long}, so adapters with millions of pages neither overflow nor lose precision.
+ */
+final class FlipPager {
+
+    static final int NO_POSITION = -1;
+
+    private int mItemLength;
+    private int mPage;
+    private int mOffset;
+
+    int getItemLength() {
+        return mItemLength;
+    }
+
+    void setItemLength(int itemLength) {
+        mItemLength = itemLength;
+    }
+
+    int getPage() {
+        return mPage;
+    }
+
+    int getOffset() {
+        return mOffset;
+    }
+
+    void setPage(int page) {
+        mPage = page;
+        mOffset = 0;
+    }
+
+    /**
+     * @return the offset as a fraction of the page length, so it can be restored for a
+     * different page length.
+     */
+    float getOffsetFraction() {
+        return mItemLength > 0 ? (float) mOffset / mItemLength : 0;
+    }
+
+    void setPage(int page, float offsetFraction) {
+        final int half = mItemLength >> 1;
+        mPage = page;
+        mOffset = Math.max(-half, Math.min(half - 1, Math.round(offsetFraction * mItemLength)));
+    }
+
+    void clamp(int itemCount) {
+        if (itemCount == 0) {
+            mPage = 0;
+            mOffset = 0;
+        }
+        else if (mPage >= itemCount) {
+            mPage = itemCount - 1;
+            mOffset = 0;
+        }
+        else if ((mPage == 0 && mOffset < 0) || (mPage == itemCount - 1 && mOffset > 0)) {
+            mOffset = 0;
+        }
+    }
+
+    /**
+     * Shifts the page so it keeps pointing at the same item. An insert at the current page
+     * goes in front of it.
+     */
+    void onItemsAdded(int positionStart, int itemCount) {
+        if (positionStart <= mPage) {
+            mPage += itemCount;
+        }
+    }
+
+    /**
+     * Shifts the page so it keeps pointing at the same item, or moves it to the first item
+     * after the removed range when the current item itself was removed.
+     */
+    void onItemsRemoved(int positionStart, int itemCount) {
+        if (positionStart + itemCount <= mPage) {
+            mPage -= itemCount;
+        }
+        else if (positionStart <= mPage) {
+            mPage = positionStart;
+            mOffset = 0;
+        }
+    }
+
+    void onItemsMoved(int from, int to, int itemCount) {
+        if (from <= mPage && mPage < from + itemCount) {
+            mPage += to - from;
+        }
+        else if (from < mPage && to + itemCount > mPage) {
+            mPage -= itemCount;
+        }
+        else if (from > mPage && to <= mPage) {
+            mPage += itemCount;
+        }
+    }
+
+    /**
+     * Moves by {@code delta} pixels, stopping at the first and the last page.
+     *
+     * @return the distance actually consumed.
+     */
+    int scrollBy(int delta, int itemCount) {
+        final int itemLength = mItemLength;
+        if (itemLength <= 0 || itemCount <= 0) {
+            return 0;
+        }
+
+        final long logicOffset = (long) mPage * itemLength + mOffset;
+        final long logicMaxOffset = (long) itemLength * (itemCount - 1);
+
+        long newLogicOffset = logicOffset + delta;
+        if (newLogicOffset < 0) {
+            newLogicOffset = 0;
+        }
+        else if (newLogicOffset > logicMaxOffset) {
+            newLogicOffset = logicMaxOffset;
+        }
+
+        final int consumed = (int) (newLogicOffset - logicOffset);
+
+        if (consumed != 0) {
+            int page = (int) (newLogicOffset / itemLength);
+            int offset = (int) (newLogicOffset % itemLength);
+
+            if (Math.abs(offset) >= (itemLength >> 1)) {
+                if (offset > 0) {
+                    offset -= itemLength;
+                    page += 1;
+                }
+                else {
+                    offset += itemLength;
+                    page -= 1;
+                }
+            }
+
+            mPage = page;
+            mOffset = offset;
+        }
+        return consumed;
+    }
+
+    /**
+     * @return the distance in pixels from the current position to {@code targetPage}.
+     */
+    long distanceTo(int targetPage) {
+        return (long) (targetPage - mPage) * mItemLength - mOffset;
+    }
+
+    /**
+     * @return the page to settle on after scrolling {@code scrollDistance} more pixels.
+     */
+    int findTargetPage(int scrollDistance, int itemCount) {
+        if (itemCount <= 0) {
+            return NO_POSITION;
+        }
+
+        final long newOffset = (long) mOffset + scrollDistance;
+
+        int newPage = mPage;
+        if (Math.abs(newOffset) > (mItemLength >> 1)) {
+            if (newOffset > 0 && newPage < (itemCount - 1)) {
+                newPage += 1;
+            }
+            else if (newOffset < 0 && newPage > 0) {
+                newPage -= 1;
+            }
+        }
+        return newPage;
+    }
+
+    static int clampToInt(long value) {
+        if (value > Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        if (value < Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+/**
+ * Computes the flip projection in plain float math instead of going through
+ * {@link android.graphics.Camera}. The result is the matrix that
+ * {@code Camera.setLocation(0, 0, -40)}, {@code rotateX(degree)} / {@code rotateY(-degree)}
+ * and a rotation around the bounds center produce, in {@link android.graphics.Matrix}
+ * value order. The last computed matrix is kept until the degree, orientation or center
+ * changes.
+ */
+final class FlipProjection {
+
+    // Camera.setLocation(0, 0, -40) in pixels, the camera uses 72 pixels per inch.
+    static final float CAMERA_DISTANCE = 40 * 72;
+
+    private final float[] mValues = new float[9];
+
+    private float mCenterX;
+    private float mCenterY;
+
+    private boolean mValid;
+    private boolean mVertical;
+    private float mDegree;
+
+    void setCenter(float centerX, float centerY) {
+        mCenterX = centerX;
+        mCenterY = centerY;
+        mValid = false;
+    }
+
+    float[] compute(boolean vertical, float degree) {
+        if (!mValid || mVertical != vertical || mDegree != degree) {
+            compute(vertical, degree, mCenterX, mCenterY, mValues);
+            mVertical = vertical;
+            mDegree = degree;
+            mValid = true;
+        }
+        return mValues;
+    }
+
+    static void compute(boolean vertical, float degree, float centerX, float centerY, float[] out) {
+        final double radians = Math.toRadians(degree);
+        final float cos = (float) Math.cos(radians);
+        final float sin = (float) Math.sin(radians);
+
+        final float scaleX;
+        final float scaleY;
+        final float persp0;
+        final float persp1;
+        if (vertical) {
+            // rotateX(degree), the half below the center comes towards the viewer.
+            scaleX = 1;
+            scaleY = cos;
+            persp0 = 0;
+            persp1 = -sin / CAMERA_DISTANCE;
+        }
+        else {
+            // rotateY(-degree), the half right of the center comes towards the viewer.
+            scaleX = cos;
+            scaleY = 1;
+            persp0 = -sin / CAMERA_DISTANCE;
+            persp1 = 0;
+        }
+
+        // translate(center) * camera * translate(-center)
+        final float persp2 = 1 - persp0 * centerX - persp1 * centerY;
+
+        out[0] = scaleX + centerX * persp0;
+        out[1] = centerX * persp1;
+        out[2] = centerX * (persp2 - scaleX);
+        out[3] = centerY * persp0;
+        out[4] = scaleY + centerY * persp1;
+        out[5] = centerY * (persp2 - scaleY);
+        out[6] = persp0;
+        out[7] = persp1;
+        out[8] = persp2;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * A {@link RecyclerView} that draws the flip of its pages itself, so a
+ * {@link FlipLayoutManager} can lay out any view as a page without wrapping it into a
+ * {@link FlipLayout}. Only one page flips at a time, all pages share one
+ * {@link FlipLayoutHelper}. Pages that are a {@link FlipLayout} still draw their own flip.
+ */
+public class FlipRecyclerView extends RecyclerView {
+
+    private final FlipLayoutHelper mHelper;
+
+    // The page the helper is bound to, and whether it flipped in the current frame.
+    private View mFlipChild;
+    private boolean mFlipped;
+
+    // The page drawSuper draws, only set while it is drawn.
+    private View mChild;
+    private long mDrawingTime;
+
+    public FlipRecyclerView(@NonNull Context context) {
+        this(context, null);
+    }
+
+    public FlipRecyclerView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public FlipRecyclerView(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mHelper = new FlipLayoutHelper(new FlipLayout() {
+            @Override
+            public void drawSuper(Canvas canvas) {
+                drawPage(canvas);
+            }
+        }, this);
+    }
+
+    @Override
+    public void setLayoutManager(@Nullable LayoutManager layout) {
+        final LayoutManager old = getLayoutManager();
+        if (old instanceof FlipLayoutManager && old != layout) {
+            ((FlipLayoutManager) old).setCompositing(false);
+        }
+        // Before the new manager lays out its first pages.
+        if (layout instanceof FlipLayoutManager) {
+            ((FlipLayoutManager) layout).setCompositing(true);
+        }
+        super.setLayoutManager(layout);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        mFlipped = false;
+        super.dispatchDraw(canvas);
+        if (!mFlipped && mFlipChild != null) {
+            mHelper.reset();
+            mFlipChild = null;
+        }
+    }
+
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        final ViewGroup.LayoutParams lp = child.getLayoutParams();
+        if (child instanceof FlipLayout || !(lp instanceof FlipLayoutManager.LayoutParams) ||
+                ((FlipLayoutManager.LayoutParams) lp).mDegree == 0) {
+            return super.drawChild(canvas, child, drawingTime);
+        }
+
+        mHelper.bind(child);
+        mFlipChild = child;
+        mFlipped = true;
+        mChild = child;
+        mDrawingTime = drawingTime;
+
+        final int saveCount = canvas.save();
+        canvas.translate(child.getLeft(), child.getTop());
+        try {
+            mHelper.draw(canvas);
+        }
+        finally {
+            canvas.restoreToCount(saveCount);
+            mChild = null;
+        }
+        return false;
+    }
+
+    @Override
+    public void onDescendantInvalidated(@NonNull View child, @NonNull View target) {
+        super.onDescendantInvalidated(child, target);
+        if (child == mFlipChild) {
+            mHelper.invalidateSnapshot();
+        }
+    }
+
+    /**
+     * Draws the page in its own coordinates. Hardware canvases draw the display list the
+     * page already has, software canvases such as snapshots draw the page again.
+     */
+    private void drawPage(Canvas canvas) {
+        final View child = mChild;
+        if (child == null) {
+            return;
+        }
+
+        if (canvas.isHardwareAccelerated()) {
+            canvas.save();
+            canvas.translate(-child.getLeft(), -child.getTop());
+            super.drawChild(canvas, child, mDrawingTime);
+            canvas.restore();
+        }
+        else {
+            child.draw(canvas);
+        }
+    }
+}
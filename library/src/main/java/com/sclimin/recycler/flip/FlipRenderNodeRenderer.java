@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import android.graphics.Canvas;
+import android.graphics.RecordingCanvas;
+import android.graphics.Rect;
+import android.graphics.RenderNode;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Draws a flipping page from display lists. The page is recorded into a {@link RenderNode}
+ * once per flip, every frame after that only updates the rotation, clip and shade alpha of
+ * the nodes. The shade is recorded again only when the flipping half changes. The page is
+ * recorded again after {@link #reset()}, which its helper calls whenever the page content
+ * is invalidated.
+ */
+@RequiresApi(Build.VERSION_CODES.Q)
+final class FlipRenderNodeRenderer {
+
+    // Same distance as Camera.setLocation(0, 0, -40) in the software path.
+    private static final float CAMERA_DISTANCE = 40;
+
+    private final RenderNode mContentNode = new RenderNode("FlipContent");
+    private final RenderNode mFlipNode = new RenderNode("FlipPart");
+    private final RenderNode mShadeNode = new RenderNode("FlipShade");
+
+    private final Rect mRect = new Rect();
+
+    private boolean mRecorded;
+    private int mRecordedFlip = -1;
+    private boolean mRecordedShading;
+
+    FlipRenderNodeRenderer() {
+        mFlipNode.setCameraDistance(CAMERA_DISTANCE);
+        mShadeNode.setHasOverlappingRendering(false);
+    }
+
+    void draw(Canvas canvas, FlipLayout flipLayout, int width, int height, Rect bounds,
+              int orientation, float degree, int flip, FlipShading shading) {
+        if (!mRecorded) {
+            recordContent(flipLayout, width, height, bounds);
+        }
+        if (mRecordedFlip != flip || mRecordedShading != (shading != null)) {
+            recordFlip(width, height, flip, shading);
+        }
+
+        final RenderNode flipNode = mFlipNode;
+        final Rect rect = mRect;
+
+        rect.set(0, 0, width, height);
+        switch (flip) {
+            case FlipLayoutHelper.FLIP_START:
+                rect.right = bounds.centerX();
+                break;
+            case FlipLayoutHelper.FLIP_END:
+                rect.left = bounds.centerX();
+                break;
+            case FlipLayoutHelper.FLIP_TOP:
+                rect.bottom = bounds.centerY();
+                break;
+            case FlipLayoutHelper.FLIP_BOTTOM:
+            default:
+                rect.top = bounds.centerY();
+                break;
+        }
+        flipNode.setClipRect(rect);
+
+        if (orientation == RecyclerView.VERTICAL) {
+            flipNode.setRotationY(0);
+            flipNode.setRotationX(degree);
+        }
+        else {
+            flipNode.setRotationX(0);
+            flipNode.setRotationY(-degree);
+        }
+        if (shading != null) {
+            mShadeNode.setAlpha(Math.min(1.f, Math.abs(degree) / 90.f));
+        }
+
+        canvas.drawRenderNode(flipNode);
+
+        canvas.save();
+        canvas.getClipBounds(rect);
+        switch (flip) {
+            case FlipLayoutHelper.FLIP_START:
+                rect.left = bounds.centerX();
+                break;
+            case FlipLayoutHelper.FLIP_END:
+                rect.right = bounds.centerX();
+                break;
+            case FlipLayoutHelper.FLIP_TOP:
+                rect.top = bounds.centerY();
+                break;
+            case FlipLayoutHelper.FLIP_BOTTOM:
+            default:
+                rect.bottom = bounds.centerY();
+                break;
+        }
+        canvas.clipRect(rect);
+        canvas.drawRenderNode(mContentNode);
+        canvas.restore();
+    }
+
+    void reset() {
+        if (mRecorded) {
+            mContentNode.discardDisplayList();
+            mFlipNode.discardDisplayList();
+            mShadeNode.discardDisplayList();
+            mRecorded = false;
+            mRecordedFlip = -1;
+        }
+    }
+
+    private void recordContent(FlipLayout flipLayout, int width, int height, Rect bounds) {
+        final RenderNode contentNode = mContentNode;
+
+        contentNode.setPosition(0, 0, width, height);
+        RecordingCanvas canvas = contentNode.beginRecording(width, height);
+        try {
+            flipLayout.drawSuper(canvas);
+        }
+        finally {
+            contentNode.endRecording();
+        }
+
+        mFlipNode.setPosition(0, 0, width, height);
+        mFlipNode.setPivotX(bounds.centerX());
+        mFlipNode.setPivotY(bounds.centerY());
+        mShadeNode.setPosition(0, 0, width, height);
+
+        mRecorded = true;
+        mRecordedFlip = -1;
+    }
+
+    private void recordFlip(int width, int height, int flip, FlipShading shading) {
+        final RenderNode flipNode = mFlipNode;
+        final RenderNode shadeNode = mShadeNode;
+
+        RecordingCanvas canvas;
+        if (shading != null) {
+            // Recorded fully opaque, the node alpha follows the degree.
+            canvas = shadeNode.beginRecording(width, height);
+            try {
+                shading.draw(canvas, flip, 90);
+            }
+            finally {
+                shadeNode.endRecording();
+            }
+        }
+
+        canvas = flipNode.beginRecording(width, height);
+        try {
+            canvas.drawRenderNode(mContentNode);
+            if (shading != null) {
+                canvas.drawRenderNode(shadeNode);
+            }
+        }
+        finally {
+            flipNode.endRecording();
+        }
+
+        mRecordedFlip = flip;
+        mRecordedShading = shading != null;
+    }
+}
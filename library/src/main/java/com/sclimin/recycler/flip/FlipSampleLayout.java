@@ -19,6 +19,7 @@ package com.sclimin.recycler.flip;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.util.AttributeSet;
+import android.view.View;
 import android.widget.FrameLayout;
 
 import androidx.annotation.NonNull;
@@ -47,6 +48,20 @@ public class FlipSampleLayout extends FrameLayout implements FlipLayout {
         mHelper.sizeChanged(w, h);
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        ensureFlipLayoutHelper();
+        mHelper.invalidateSnapshot();
+    }
+
+    @Override
+    public void onDescendantInvalidated(@NonNull View child, @NonNull View target) {
+        super.onDescendantInvalidated(child, target);
+        ensureFlipLayoutHelper();
+        mHelper.invalidateSnapshot();
+    }
+
     private void ensureFlipLayoutHelper() {
         if (mHelper == null) {
             mHelper = new FlipLayoutHelper(this);
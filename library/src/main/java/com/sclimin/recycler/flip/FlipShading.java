@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Shader;
+
+/**
+ * Shades the flipping half of a page with a gradient that is darkest at the fold. The
+ * gradients are built once per bounds size, every frame only changes the paint alpha.
+ */
+final class FlipShading {
+
+    private static final int FOLD_COLOR = Color.argb(0x99, 0, 0, 0);
+    private static final int EDGE_COLOR = Color.argb(0x4d, 0, 0, 0);
+
+    private final Rect mBounds = new Rect();
+    private final Rect mRect = new Rect();
+    private final Shader[] mShaders = new Shader[4];
+    private final Paint mPaint = new Paint();
+
+    void setBounds(Rect bounds) {
+        mBounds.set(bounds);
+        for (int i = 0; i < mShaders.length; i++) {
+            mShaders[i] = null;
+        }
+    }
+
+    void draw(Canvas canvas, int flip, float degree) {
+        final Rect rect = mRect;
+        final Rect bounds = mBounds;
+        final Paint paint = mPaint;
+
+        rect.set(bounds);
+        switch (flip) {
+            case FlipLayoutHelper.FLIP_START:
+                rect.right = bounds.centerX();
+                break;
+            case FlipLayoutHelper.FLIP_END:
+                rect.left = bounds.centerX();
+                break;
+            case FlipLayoutHelper.FLIP_TOP:
+                rect.bottom = bounds.centerY();
+                break;
+            case FlipLayoutHelper.FLIP_BOTTOM:
+            default:
+                rect.top = bounds.centerY();
+                break;
+        }
+
+        paint.setShader(getShader(flip));
+        paint.setAlpha((int) (0xff * Math.min(1.f, Math.abs(degree) / 90.f)));
+        canvas.drawRect(rect, paint);
+    }
+
+    private Shader getShader(int flip) {
+        Shader shader = mShaders[flip];
+        if (shader == null) {
+            final Rect bounds = mBounds;
+            final float centerX = bounds.exactCenterX();
+            final float centerY = bounds.exactCenterY();
+            switch (flip) {
+                case FlipLayoutHelper.FLIP_START:
+                    shader = new LinearGradient(centerX, 0, bounds.left, 0,
+                            FOLD_COLOR, EDGE_COLOR, Shader.TileMode.CLAMP);
+                    break;
+                case FlipLayoutHelper.FLIP_END:
+                    shader = new LinearGradient(centerX, 0, bounds.right, 0,
+                            FOLD_COLOR, EDGE_COLOR, Shader.TileMode.CLAMP);
+                    break;
+                case FlipLayoutHelper.FLIP_TOP:
+                    shader = new LinearGradient(0, centerY, 0, bounds.top,
+                            FOLD_COLOR, EDGE_COLOR, Shader.TileMode.CLAMP);
+                    break;
+                case FlipLayoutHelper.FLIP_BOTTOM:
+                default:
+                    shader = new LinearGradient(0, centerY, 0, bounds.bottom,
+                            FOLD_COLOR, EDGE_COLOR, Shader.TileMode.CLAMP);
+                    break;
+            }
+            mShaders[flip] = shader;
+        }
+        return shader;
+    }
+}
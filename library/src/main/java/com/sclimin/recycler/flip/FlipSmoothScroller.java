@@ -16,56 +16,112 @@
 
 package com.sclimin.recycler.flip;
 
-import android.content.Context;
 import android.graphics.PointF;
 import android.view.View;
+import android.view.animation.Interpolator;
 
-import androidx.recyclerview.widget.LinearSmoothScroller;
+import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-final class FlipSmoothScroller extends LinearSmoothScroller {
+/**
+ * Settles a flip on its target page along a {@link FlipSpring}. The settle is a smooth scroll
+ * of RecyclerView itself, so the list reports {@link RecyclerView#SCROLL_STATE_SETTLING} and
+ * prefetches the pages ahead while it runs. The spring is fixed when the settle starts, each
+ * frame only evaluates it through {@link SpringInterpolator}.
+ */
+final class FlipSmoothScroller extends RecyclerView.SmoothScroller {
+
+    private final SpringInterpolator mInterpolator;
+    private final int mVelocity;
+
+    private boolean mSeeking;
 
-    public FlipSmoothScroller(Context context) {
-        super(context);
+    /**
+     * @param velocity the release velocity in pixels per second.
+     */
+    FlipSmoothScroller(SpringInterpolator interpolator, int targetPosition, int velocity) {
+        mInterpolator = interpolator;
+        mVelocity = velocity;
+        setTargetPosition(targetPosition);
     }
 
     @Override
-    protected void onSeekTargetStep(int dx, int dy, RecyclerView.State state, Action action) {
-        if (getChildCount() == 0) {
-            stop();
+    protected void onStart() {
+    }
+
+    @Override
+    protected void onStop() {
+    }
+
+    @Override
+    protected void onSeekTargetStep(int dx, int dy, @NonNull RecyclerView.State state,
+                                    @NonNull Action action) {
+        // The target page is not attached yet. The settle runs the whole distance at once and
+        // keeps going once the page is found.
+        if (mSeeking) {
             return;
         }
-
-        PointF scrollVector = computeScrollVectorForPosition(getTargetPosition());
-        if (scrollVector == null || (scrollVector.x == 0 && scrollVector.y == 0)) {
-            final int target = getTargetPosition();
-            action.jumpTo(target);
+        final PointF scrollVector = computeScrollVectorForPosition(getTargetPosition());
+        if (scrollVector == null) {
             stop();
             return;
         }
-
-        mTargetVector = scrollVector;
-        mInterimTargetDx = (int) scrollVector.x;
-        mInterimTargetDy = (int) scrollVector.y;
-
-        updateActionForInterimTarget(action, mInterimTargetDx, mInterimTargetDy);
+        mSeeking = true;
+        update(action, (int) scrollVector.x, (int) scrollVector.y);
     }
 
     @Override
-    protected void onTargetFound(View targetView, RecyclerView.State state, Action action) {
-        if (!(getLayoutManager() instanceof FlipLayoutManager)) {
+    protected void onTargetFound(@NonNull View targetView, @NonNull RecyclerView.State state,
+                                 @NonNull Action action) {
+        final RecyclerView.LayoutManager layoutManager = getLayoutManager();
+        if (mSeeking || !(layoutManager instanceof FlipLayoutManager)) {
             return;
         }
+        final int[] snapDistance =
+                ((FlipLayoutManager) layoutManager).calculateDistanceToFinalSnap(targetView);
+        update(action, snapDistance[0], snapDistance[1]);
+    }
 
-        int[] snapDistances = ((FlipLayoutManager) getLayoutManager())
-                .calculateDistanceToFinalSnap(targetView);
-        updateActionForInterimTarget(action, snapDistances[0], snapDistances[1]);
+    private void update(Action action, int dx, int dy) {
+        // Only one of the two is set, the flip scrolls along its orientation.
+        final int duration = mInterpolator.start(dx + dy, mVelocity);
+        if (duration > 0) {
+            action.update(dx, dy, duration, mInterpolator);
+        }
     }
 
-    private void updateActionForInterimTarget(Action action, int dx, int dy) {
-        final int time = calculateTimeForDeceleration(Math.max(Math.abs(dx), Math.abs(dy)));
-        if (time > 0) {
-            action.update(dx, dy, time, mDecelerateInterpolator);
+    /**
+     * Maps the elapsed fraction of a settle to the fraction of its distance the spring has
+     * covered. RecyclerView creates a new scroller whenever the interpolator changes, so all
+     * settles of a list share one instance.
+     */
+    static final class SpringInterpolator implements Interpolator {
+
+        // Stops a settle that, for whatever reason, never comes to rest.
+        private static final float MAX_DURATION = 1.f;
+
+        private final FlipSpring mSpring = new FlipSpring();
+        private float mDuration;
+
+        /**
+         * @return the duration of the settle in milliseconds, 0 if there is nothing to settle.
+         */
+        int start(int distance, float velocity) {
+            if (distance == 0) {
+                return 0;
+            }
+            mSpring.start(distance, velocity);
+            final int duration = Math.max(1, Math.round(mSpring.findRestTime(MAX_DURATION) * 1000));
+            mDuration = duration / 1000.f;
+            return duration;
+        }
+
+        @Override
+        public float getInterpolation(float input) {
+            if (input >= 1) {
+                return 1;
+            }
+            return mSpring.getPosition(input * mDuration) / mSpring.getDistance();
         }
     }
 }
@@ -16,89 +16,200 @@
 
 package com.sclimin.recycler.flip;
 
-import android.util.DisplayMetrics;
-import android.view.View;
+import android.view.animation.DecelerateInterpolator;
+import android.widget.Scroller;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.recyclerview.widget.LinearSmoothScroller;
 import androidx.recyclerview.widget.RecyclerView;
-import androidx.recyclerview.widget.SnapHelper;
 
-final class FlipSnapHelper extends SnapHelper {
+/**
+ * Snaps to a page when a fling or a drag ends. The settle is a {@link FlipSmoothScroller} that
+ * follows a spring from the release velocity. RecyclerView runs it like any smooth scroll, so
+ * it reports the settling state and stops it when the list is touched.
+ */
+final class FlipSnapHelper extends RecyclerView.OnFlingListener {
 
     private RecyclerView mRecyclerView;
+    private Scroller mGravityScroller;
 
-    @Nullable
-    @Override
-    public int[] calculateDistanceToFinalSnap(@NonNull RecyclerView.LayoutManager layoutManager, @NonNull View targetView) {
-        if (layoutManager instanceof FlipLayoutManager) {
-            return ((FlipLayoutManager) layoutManager).calculateDistanceToFinalSnap(targetView);
+    private final FlipSmoothScroller.SpringInterpolator mInterpolator =
+            new FlipSmoothScroller.SpringInterpolator();
+    private final int[] mScrollDistance = new int[2];
+
+    private boolean mScrolled;
+
+    // Set from the start of a smooth scroll until RecyclerView leaves the settling state.
+    private boolean mSettling;
+
+    // A settle after a jump waits for the layout that fills the pages around the target,
+    // its first frame would scroll the old pages otherwise.
+    private int mPendingPage = RecyclerView.NO_POSITION;
+    private int mPendingVelocity;
+
+    private final RecyclerView.OnScrollListener mScrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            if (dx != 0 || dy != 0) {
+                mScrolled = true;
+            }
+        }
+    };
+
+    void attachToRecyclerView(@Nullable RecyclerView recyclerView) throws IllegalStateException {
+        if (mRecyclerView == recyclerView) {
+            return;
+        }
+        if (mRecyclerView != null) {
+            stop();
+            mRecyclerView.removeOnScrollListener(mScrollListener);
+            mRecyclerView.setOnFlingListener(null);
+        }
+        mRecyclerView = recyclerView;
+        if (recyclerView != null) {
+            if (recyclerView.getOnFlingListener() != null) {
+                throw new IllegalStateException("An instance of OnFlingListener already set.");
+            }
+            mGravityScroller = new Scroller(recyclerView.getContext(), new DecelerateInterpolator());
+            recyclerView.addOnScrollListener(mScrollListener);
+            recyclerView.setOnFlingListener(this);
+            settle(0, 0);
         }
-        return null;
     }
 
-    @Nullable
-    @Override
-    public View findSnapView(RecyclerView.LayoutManager layoutManager) {
+    /**
+     * @param afterLayout true if the layout manager jumped and the settle has to wait for the
+     *                    next layout.
+     */
+    void smoothScrollToPage(int position, boolean afterLayout) {
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
         if (layoutManager instanceof FlipLayoutManager) {
-            return ((FlipLayoutManager) layoutManager).findSnapView();
+            startSettle((FlipLayoutManager) layoutManager, position, 0, afterLayout);
         }
-        return null;
     }
 
-    @Override
-    public int findTargetSnapPosition(RecyclerView.LayoutManager layoutManager, int velocityX, int velocityY) {
+    void onLayoutCompleted() {
+        if (mPendingPage == RecyclerView.NO_POSITION || mRecyclerView == null) {
+            return;
+        }
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
         if (layoutManager instanceof FlipLayoutManager) {
-            return ((FlipLayoutManager) layoutManager).findTargetSnapPosition(
-                    calculateScrollDistance(velocityX, velocityY));
+            final FlipLayoutManager flipLayoutManager = (FlipLayoutManager) layoutManager;
+            final int page = Math.min(mPendingPage, flipLayoutManager.getItemCount() - 1);
+            startSettle(flipLayoutManager, Math.max(0, page), mPendingVelocity, false);
+        }
+        else {
+            mPendingPage = RecyclerView.NO_POSITION;
         }
-        return RecyclerView.NO_POSITION;
     }
 
-    @Override
-    public void attachToRecyclerView(@Nullable RecyclerView recyclerView) throws IllegalStateException {
-        super.attachToRecyclerView(recyclerView);
-        mRecyclerView = recyclerView;
+    /**
+     * Called by the layout manager before it reports a new scroll state.
+     */
+    void onScrollStateChanged(int state) {
+        if (mRecyclerView == null || state == RecyclerView.SCROLL_STATE_SETTLING) {
+            return;
+        }
+        mSettling = false;
+        if (state == RecyclerView.SCROLL_STATE_DRAGGING) {
+            mPendingPage = RecyclerView.NO_POSITION;
+        }
+        else if (mScrolled && mPendingPage == RecyclerView.NO_POSITION) {
+            // Also snaps a settle that a touch stopped without a drag.
+            mScrolled = false;
+            settle(0, 0);
+        }
+    }
+
+    boolean isAttached() {
+        return mRecyclerView != null;
+    }
+
+    boolean isSettling() {
+        return mPendingPage != RecyclerView.NO_POSITION || mSettling;
+    }
+
+    boolean isAnimating() {
+        return mSettling;
+    }
+
+    void stop() {
+        mPendingPage = RecyclerView.NO_POSITION;
+        mScrolled = false;
+        if (mSettling) {
+            mSettling = false;
+            mRecyclerView.stopScroll();
+        }
     }
 
-    @Nullable
     @Override
-    protected RecyclerView.SmoothScroller createScroller(final RecyclerView.LayoutManager layoutManager) {
-        if (mRecyclerView == null || layoutManager == null) {
-            return null;
-        }
-
-        return new LinearSmoothScroller(mRecyclerView.getContext()) {
-            @Override
-            protected void onTargetFound(View targetView, RecyclerView.State state, Action action) {
-
-                if (!(layoutManager instanceof FlipLayoutManager)) {
-                    return;
-                }
-
-                int[] snapDistances = calculateDistanceToFinalSnap(layoutManager, targetView);
-                if (snapDistances == null) {
-                    return;
-                }
-
-                final int dx = snapDistances[0];
-                final int dy = snapDistances[1];
-                final int time = calculateTimeForDeceleration(Math.max(Math.abs(dx), Math.abs(dy)));
-                if (time > 0) {
-                    action.update(dx, dy, time, mDecelerateInterpolator);
-                }
-            }
+    public boolean onFling(int velocityX, int velocityY) {
+        final int minFlingVelocity = mRecyclerView.getMinFlingVelocity();
+        if (Math.abs(velocityX) < minFlingVelocity && Math.abs(velocityY) < minFlingVelocity) {
+            return false;
+        }
+        if (!settle(velocityX, velocityY)) {
+            return false;
+        }
+        if (!isSettling()) {
+            // RecyclerView stays in the dragging state after a fling it did not run itself.
+            mRecyclerView.stopScroll();
+        }
+        return true;
+    }
 
-            @Override
-            protected float calculateSpeedPerPixel(DisplayMetrics displayMetrics) {
-                return 25f / displayMetrics.densityDpi;
-            }
+    private boolean settle(int velocityX, int velocityY) {
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (!(layoutManager instanceof FlipLayoutManager)) {
+            return false;
+        }
 
-            @Override
-            protected int calculateTimeForScrolling(int dx) {
-                return Math.min(250, super.calculateTimeForScrolling(dx));
-            }
-        };
+        final FlipLayoutManager flipLayoutManager = (FlipLayoutManager) layoutManager;
+        final boolean vertical = flipLayoutManager.canScrollVertically();
+        final int velocity = vertical ? velocityY : velocityX;
+
+        final int targetPosition;
+        if (velocity == 0) {
+            targetPosition = flipLayoutManager.getPage();
+        }
+        else {
+            targetPosition = flipLayoutManager.findTargetSnapPosition(
+                    calculateScrollDistance(velocityX, velocityY));
+        }
+        if (targetPosition == RecyclerView.NO_POSITION) {
+            return false;
+        }
+
+        startSettle(flipLayoutManager, targetPosition, velocity,
+                flipLayoutManager.jumpNextToPage(targetPosition));
+        return true;
+    }
+
+    private void startSettle(FlipLayoutManager layoutManager, int page, int velocity,
+                             boolean afterLayout) {
+        mScrolled = false;
+        mPendingPage = RecyclerView.NO_POSITION;
+        if (afterLayout) {
+            mPendingPage = page;
+            mPendingVelocity = velocity;
+        }
+        if (!afterLayout && layoutManager.calculateDistanceToPage(page) != 0) {
+            // Replaces a running settle without leaving the settling state.
+            mSettling = true;
+            layoutManager.startSmoothScroll(new FlipSmoothScroller(mInterpolator, page, velocity));
+        }
+        else if (mSettling) {
+            mSettling = false;
+            mRecyclerView.stopScroll();
+        }
+        layoutManager.onSettleChanged();
+    }
+
+    private int[] calculateScrollDistance(int velocityX, int velocityY) {
+        mGravityScroller.fling(0, 0, velocityX, velocityY,
+                Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        mScrollDistance[0] = mGravityScroller.getFinalX();
+        mScrollDistance[1] = mGravityScroller.getFinalY();
+        return mScrollDistance;
     }
 }
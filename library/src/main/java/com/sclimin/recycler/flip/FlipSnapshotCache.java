@@ -0,0 +1,265 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Picture;
+import android.os.Build;
+import android.util.LongSparseArray;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+
+/**
+ * Page snapshots of a {@link FlipLayoutManager}, bounded in bytes and evicted least recently
+ * used first. Snapshots are keyed by item id for adapters with stable ids and by adapter
+ * position otherwise, so one cache must not be shared between lists.
+ * <p>
+ * Evicted snapshots are kept for reuse, up to two bitmaps outside the byte budget. The
+ * cache trims itself on {@link #onTrimMemory(int)} while its list is attached to the window.
+ */
+public class FlipSnapshotCache implements ComponentCallbacks2 {
+
+    private static final int MAX_FREE_BITMAPS = 2;
+
+    // Looked up on every flip frame. The primitive keys are not boxed, unlike in an LruCache.
+    private final LongSparseArray<Entry> mEntries = new LongSparseArray<>();
+    // Sentinel of the entries in access order, its next entry is the least recently used.
+    private final Entry mOrder = new Entry();
+    private final int mMaxBytes;
+    private int mBytes;
+
+    private final ArrayList<Bitmap> mFreeBitmaps = new ArrayList<>(MAX_FREE_BITMAPS);
+    private final Canvas mCanvas = new Canvas();
+
+    private Bitmap.Config mConfig = Bitmap.Config.ARGB_8888;
+
+    public FlipSnapshotCache(int maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        mMaxBytes = maxBytes;
+        mOrder.mPrevious = mOrder;
+        mOrder.mNext = mOrder;
+    }
+
+    /**
+     * Sets the config of new snapshots. {@link Bitmap.Config#RGB_565} halves the memory of
+     * opaque pages, {@link Bitmap.Config#HARDWARE} keeps them in graphics memory only and
+     * requires API 28. Changing the config drops all snapshots.
+     */
+    public void setConfig(@NonNull Bitmap.Config config) {
+        if (config != Bitmap.Config.ARGB_8888 && config != Bitmap.Config.RGB_565 &&
+                (config != Bitmap.Config.HARDWARE || Build.VERSION.SDK_INT < Build.VERSION_CODES.P)) {
+            throw new IllegalArgumentException("Unsupported snapshot config " + config);
+        }
+        if (mConfig != config) {
+            mConfig = config;
+            clear();
+        }
+    }
+
+    @NonNull
+    public Bitmap.Config getConfig() {
+        return mConfig;
+    }
+
+    public int getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    public int getBytes() {
+        return mBytes;
+    }
+
+    public void clear() {
+        trimToSize(0);
+        releaseFreeBitmaps();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            clear();
+        }
+        else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(mMaxBytes / 2);
+            releaseFreeBitmaps();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    Bitmap get(long key) {
+        final Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        unlink(entry);
+        link(entry);
+        return entry.mBitmap;
+    }
+
+    void put(long key, Bitmap snapshot) {
+        final Entry previous = mEntries.get(key);
+        if (previous != null) {
+            removeEntry(previous, snapshot);
+        }
+
+        final Entry entry = new Entry();
+        entry.mKey = key;
+        entry.mBitmap = snapshot;
+        entry.mBytes = snapshot.getAllocationByteCount();
+        mEntries.put(key, entry);
+        link(entry);
+        mBytes += entry.mBytes;
+        trimToSize(mMaxBytes);
+    }
+
+    /**
+     * Removes {@code snapshot} if it still is the entry of {@code key}.
+     */
+    void remove(long key, Bitmap snapshot) {
+        final Entry entry = mEntries.get(key);
+        if (entry != null && entry.mBitmap == snapshot) {
+            removeEntry(entry, null);
+        }
+    }
+
+    boolean hasRoomFor(int width, int height) {
+        return mBytes + byteCount(width, height) <= mMaxBytes;
+    }
+
+    /**
+     * @return a new snapshot of {@code flipLayout}, or null if it is larger than the cache.
+     */
+    Bitmap render(FlipLayout flipLayout, int width, int height) {
+        if (byteCount(width, height) > mMaxBytes) {
+            return null;
+        }
+
+        if (mConfig == Bitmap.Config.HARDWARE && Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            final Picture picture = new Picture();
+            flipLayout.drawSuper(picture.beginRecording(width, height));
+            picture.endRecording();
+            return Bitmap.createBitmap(picture, width, height, Bitmap.Config.HARDWARE);
+        }
+
+        final Bitmap snapshot = obtain(width, height);
+        final Canvas canvas = mCanvas;
+        snapshot.eraseColor(Color.TRANSPARENT);
+        canvas.setBitmap(snapshot);
+        flipLayout.drawSuper(canvas);
+        canvas.setBitmap(null);
+        return snapshot;
+    }
+
+    private void trimToSize(int maxBytes) {
+        while (mBytes > maxBytes && mOrder.mNext != mOrder) {
+            removeEntry(mOrder.mNext, null);
+        }
+    }
+
+    /**
+     * @param replacement the snapshot that takes the place of the entry, it is not released.
+     */
+    private void removeEntry(Entry entry, Bitmap replacement) {
+        mEntries.remove(entry.mKey);
+        unlink(entry);
+        mBytes -= entry.mBytes;
+        if (entry.mBitmap != replacement) {
+            release(entry.mBitmap);
+        }
+    }
+
+    private void link(Entry entry) {
+        entry.mPrevious = mOrder.mPrevious;
+        entry.mNext = mOrder;
+        mOrder.mPrevious.mNext = entry;
+        mOrder.mPrevious = entry;
+    }
+
+    private static void unlink(Entry entry) {
+        entry.mPrevious.mNext = entry.mNext;
+        entry.mNext.mPrevious = entry.mPrevious;
+        entry.mPrevious = null;
+        entry.mNext = null;
+    }
+
+    private long byteCount(int width, int height) {
+        return (long) width * height * (mConfig == Bitmap.Config.RGB_565 ? 2 : 4);
+    }
+
+    private Bitmap obtain(int width, int height) {
+        final ArrayList<Bitmap> freeBitmaps = mFreeBitmaps;
+        for (int i = freeBitmaps.size() - 1; i >= 0; i--) {
+            final Bitmap bitmap = freeBitmaps.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height &&
+                    bitmap.getConfig() == mConfig) {
+                freeBitmaps.remove(i);
+                return bitmap;
+            }
+        }
+
+        if (!freeBitmaps.isEmpty()) {
+            final Bitmap bitmap = freeBitmaps.remove(freeBitmaps.size() - 1);
+            if (bitmap.getAllocationByteCount() >= byteCount(width, height)) {
+                bitmap.reconfigure(width, height, mConfig);
+                return bitmap;
+            }
+            bitmap.recycle();
+        }
+        return Bitmap.createBitmap(width, height, mConfig);
+    }
+
+    private void release(Bitmap bitmap) {
+        if (bitmap.isMutable() && bitmap.getConfig() == mConfig &&
+                mFreeBitmaps.size() < MAX_FREE_BITMAPS) {
+            mFreeBitmaps.add(bitmap);
+        }
+        else {
+            bitmap.recycle();
+        }
+    }
+
+    private void releaseFreeBitmaps() {
+        for (int i = 0; i < mFreeBitmaps.size(); i++) {
+            mFreeBitmaps.get(i).recycle();
+        }
+        mFreeBitmaps.clear();
+    }
+
+    private static final class Entry {
+        long mKey;
+        Bitmap mBitmap;
+        int mBytes;
+        Entry mPrevious;
+        Entry mNext;
+    }
+}
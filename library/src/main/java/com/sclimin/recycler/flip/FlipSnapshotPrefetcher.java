@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+
+/**
+ * Renders the snapshots of the attached pages while the main thread is idle, one page per
+ * idle pass, the current page first. A neighbour that becomes the current page then starts
+ * its flip from a ready snapshot.
+ */
+final class FlipSnapshotPrefetcher implements MessageQueue.IdleHandler {
+
+    private final FlipLayoutManager mLayoutManager;
+
+    private boolean mScheduled;
+
+    FlipSnapshotPrefetcher(FlipLayoutManager layoutManager) {
+        mLayoutManager = layoutManager;
+    }
+
+    void schedule() {
+        if (!mScheduled && Looper.myLooper() == Looper.getMainLooper()) {
+            mScheduled = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+    }
+
+    void cancel() {
+        if (mScheduled) {
+            mScheduled = false;
+            Looper.getMainLooper().getQueue().removeIdleHandler(this);
+        }
+    }
+
+    @Override
+    public boolean queueIdle() {
+        if (mLayoutManager.isSnapshotEnabled() && prepareNext()) {
+            return true;
+        }
+        mScheduled = false;
+        return false;
+    }
+
+    private boolean prepareNext() {
+        final FlipLayoutManager layoutManager = mLayoutManager;
+        final int page = layoutManager.getPage();
+        for (int i = 0; i < 3; i++) {
+            // page, page + 1, page - 1
+            final int position = page + (i == 2 ? -1 : i);
+            final View child = layoutManager.findViewByPosition(position);
+            if (child == null || child.isLayoutRequested()) {
+                continue;
+            }
+
+            final FlipLayoutHelper helper = FlipLayoutHelper.from(child);
+            if (helper != null && helper.prepareSnapshot()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020, sclimin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sclimin.recycler.flip;
+
+/**
+ * Critically damped spring that settles a flip on its target page. The curve is fixed by the
+ * distance and release velocity when the settle starts, every frame only evaluates it in
+ * closed form.
+ */
+final class FlipSpring {
+
+    // Angular frequency in 1/s, a full page settles in about 400ms.
+    static final float OMEGA = 25.f;
+
+    // At rest once the page is within half a pixel and moves less than half a pixel per
+    // frame at 50Hz.
+    private static final float REST_DISTANCE = 0.5f;
+    private static final float REST_VELOCITY = 25.f;
+
+    // The rest time is searched in steps of a quarter of a 60Hz frame.
+    private static final float REST_TIME_STEP = 1 / 240.f;
+
+    private int mDistance;
+    private float mError;
+    private float mTerm;
+
+    /**
+     * @param distance the distance to the target page in pixels.
+     * @param velocity the release velocity in pixels per second. It is capped to the speed that
+     *                 reaches the target without overshooting it.
+     */
+    void start(int distance, float velocity) {
+        final float maxVelocity = OMEGA * Math.abs(distance);
+        mDistance = distance;
+        mError = -distance;
+        mTerm = Math.max(-maxVelocity, Math.min(maxVelocity, velocity)) + OMEGA * mError;
+    }
+
+    int getDistance() {
+        return mDistance;
+    }
+
+    /**
+     * @return the distance travelled after {@code time} seconds.
+     */
+    float getPosition(float time) {
+        return mDistance + (mError + mTerm * time) * decay(time);
+    }
+
+    float getVelocity(float time) {
+        return (mTerm - OMEGA * (mError + mTerm * time)) * decay(time);
+    }
+
+    boolean isAtRest(float time) {
+        return Math.abs(getPosition(time) - mDistance) < REST_DISTANCE &&
+                Math.abs(getVelocity(time)) < REST_VELOCITY;
+    }
+
+    /**
+     * @return the time in seconds the spring comes to rest at, at most {@code maxTime}.
+     */
+    float findRestTime(float maxTime) {
+        float time = 0;
+        while (time < maxTime && !isAtRest(time)) {
+            time += REST_TIME_STEP;
+        }
+        return Math.min(time, maxTime);
+    }
+
+    private static float decay(float time) {
+        return (float) Math.exp(-OMEGA * time);
+    }
+}
@@ -0,0 +1,128 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.recyclerview.widget.DefaultItemAnimator;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Applies adapter updates around the current page and checks that the page follows its
+ * item, that updates outside the page window neither rebind nor replace the pages, and
+ * that an item animator fades pages in and out of the window.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipAdapterUpdateTest {
+
+    private RecyclerView mRecyclerView;
+    private FlipLayoutManager mLayoutManager;
+    private TestPageAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mLayoutManager = new FlipLayoutManager(context);
+        mAdapter = new TestPageAdapter(20);
+        mRecyclerView = TestPages.create(context, mLayoutManager, mAdapter);
+        mRecyclerView.setItemAnimator(null);
+        mLayoutManager.scrollToPosition(10);
+        TestPages.layout(mRecyclerView);
+    }
+
+    @Test
+    public void insertAtHead_keepsPageWindow() {
+        final View current = mLayoutManager.findViewByPosition(10);
+        final int bindCount = mAdapter.getBindCount();
+
+        mAdapter.setItemCount(23);
+        mAdapter.notifyItemRangeInserted(0, 3);
+        TestPages.layout(mRecyclerView);
+
+        assertEquals(13, mLayoutManager.getPage());
+        assertSame(current, mLayoutManager.findViewByPosition(13));
+        assertEquals(bindCount, mAdapter.getBindCount());
+    }
+
+    @Test
+    public void removeAndChangeOutsideWindow_keepPageWindow() {
+        final View current = mLayoutManager.findViewByPosition(10);
+        final int bindCount = mAdapter.getBindCount();
+
+        mAdapter.setItemCount(18);
+        mAdapter.notifyItemRangeRemoved(15, 2);
+        mAdapter.notifyItemRangeRemoved(0, 2);
+        mAdapter.notifyItemChanged(0);
+        mAdapter.notifyItemMoved(1, 16);
+        TestPages.layout(mRecyclerView);
+
+        assertEquals(7, mLayoutManager.getPage());
+        assertSame(current, mLayoutManager.findViewByPosition(7));
+        assertEquals(bindCount, mAdapter.getBindCount());
+    }
+
+    @Test
+    public void removeCurrentPage_showsNextItem() {
+        mAdapter.setItemCount(19);
+        mAdapter.notifyItemRemoved(10);
+        TestPages.layout(mRecyclerView);
+
+        assertEquals(10, mLayoutManager.getPage());
+        assertEquals(3, mLayoutManager.getChildCount());
+    }
+
+    @Test
+    public void insertBeforeCurrentPage_fadesTheNewPageIn() {
+        mRecyclerView.setItemAnimator(new DefaultItemAnimator());
+        final View current = mLayoutManager.findViewByPosition(10);
+
+        mAdapter.setItemCount(21);
+        mAdapter.notifyItemInserted(10);
+        TestPages.layout(mRecyclerView);
+
+        assertEquals(11, mLayoutManager.getPage());
+        assertSame(current, mLayoutManager.findViewByPosition(11));
+        final View inserted = mLayoutManager.findViewByPosition(10);
+        assertNotNull(inserted);
+        assertTrue(mRecyclerView.getItemAnimator().isRunning());
+
+        mRecyclerView.getItemAnimator().endAnimations();
+        assertEquals(1, inserted.getAlpha(), 0);
+        assertEquals(3, mRecyclerView.getChildCount());
+    }
+
+    @Test
+    public void removeCurrentPage_fadesTheOldPageOut() {
+        mRecyclerView.setItemAnimator(new DefaultItemAnimator());
+        final View removed = mLayoutManager.findViewByPosition(10);
+        final View next = mLayoutManager.findViewByPosition(11);
+
+        mAdapter.setItemCount(19);
+        mAdapter.notifyItemRemoved(10);
+        TestPages.layout(mRecyclerView);
+
+        assertEquals(10, mLayoutManager.getPage());
+        assertSame(next, mLayoutManager.findViewByPosition(10));
+        assertEquals(3, mLayoutManager.getChildCount());
+        // The removed page stays attached until its fade out ends.
+        assertSame(mRecyclerView, removed.getParent());
+        assertTrue(mRecyclerView.getItemAnimator().isRunning());
+
+        mRecyclerView.getItemAnimator().endAnimations();
+        assertNull(removed.getParent());
+        assertEquals(3, mRecyclerView.getChildCount());
+    }
+}
@@ -0,0 +1,179 @@
+package com.sclimin.recycler.flip;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds frames and stage timings into a {@link FlipFrameTracker} by hand and checks the
+ * report it sends once the gesture ends.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipFrameTrackerTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long FRAME = 1_000_000_000L / 60;
+
+    private FlipFrameTracker mTracker;
+    private FlipFrameStats mReport;
+    private long mTime;
+
+    @Before
+    public void setUp() {
+        mTracker = new FlipFrameTracker(new FlipFrameStats.Listener() {
+            @Override
+            public void onFrameStats(@NonNull FlipFrameStats stats) {
+                mReport = stats;
+            }
+        });
+        mTracker.setRefreshRate(60);
+        mTime = 1000 * MS;
+    }
+
+    @Test
+    public void slowFrames_areBlamedOnTheirSlowestStage() {
+        mTracker.onScrolled();
+        frame(FRAME);
+
+        mTracker.onScrolled();
+        mTracker.onStage(FlipMetrics.STAGE_DRAW, 2 * MS);
+        frame(FRAME);
+
+        // Bind inside fill inside scroll.
+        mTracker.onScrolled();
+        mTracker.onBegin(FlipMetrics.STAGE_SCROLL);
+        mTracker.onBegin(FlipMetrics.STAGE_FILL);
+        mTracker.onBegin(FlipMetrics.STAGE_BIND);
+        mTracker.onStage(FlipMetrics.STAGE_BIND, 30 * MS);
+        mTracker.onStage(FlipMetrics.STAGE_FILL, 32 * MS);
+        mTracker.onStage(FlipMetrics.STAGE_SCROLL, 33 * MS);
+        mTracker.onStage(FlipMetrics.STAGE_DRAW, 3 * MS);
+        frame(3 * FRAME);
+
+        mTracker.onScrolled();
+        mTracker.onStage(FlipMetrics.STAGE_DRAW, 40 * MS);
+        frame(3 * FRAME);
+
+        mTracker.onScrolled();
+        frame(2 * FRAME);
+
+        idle();
+
+        assertEquals(FRAME, mReport.getFrameBudgetNanos());
+        assertEquals(4, mReport.getFrameCount());
+        assertEquals(3, mReport.getJankyFrameCount());
+        assertEquals(3 * FRAME, mReport.getMaxFrameNanos());
+        assertEquals(9 * FRAME, mReport.getDurationNanos());
+
+        assertEquals(3, mReport.getRecordedFrameCount());
+        assertEquals(1, mReport.getJankyFrameIndex(0));
+        assertEquals(FlipMetrics.STAGE_BIND, mReport.getJankyFrameStage(0));
+        assertEquals(2, mReport.getJankyFrameIndex(1));
+        assertEquals(FlipMetrics.STAGE_DRAW, mReport.getJankyFrameStage(1));
+        assertEquals(3, mReport.getJankyFrameIndex(2));
+        assertEquals(FlipFrameStats.STAGE_NONE, mReport.getJankyFrameStage(2));
+        assertEquals(2 * FRAME, mReport.getJankyFrameNanos(2));
+
+        assertEquals(1, mReport.getJankyFrameCount(FlipMetrics.STAGE_BIND));
+        assertEquals(1, mReport.getJankyFrameCount(FlipMetrics.STAGE_DRAW));
+        assertEquals(0, mReport.getJankyFrameCount(FlipMetrics.STAGE_FILL));
+        assertEquals(1, mReport.getJankyFrameCount(FlipFrameStats.STAGE_NONE));
+    }
+
+    @Test
+    public void relayout_isBlamedOnLayoutWithoutItsFill() {
+        mTracker.onScrolled();
+        frame(FRAME);
+
+        // A layout that spends most of its time outside the fill it runs.
+        mTracker.onScrolled();
+        mTracker.onBegin(FlipMetrics.STAGE_LAYOUT);
+        mTracker.onBegin(FlipMetrics.STAGE_FILL);
+        mTracker.onBegin(FlipMetrics.STAGE_BIND);
+        mTracker.onStage(FlipMetrics.STAGE_BIND, 12 * MS);
+        mTracker.onStage(FlipMetrics.STAGE_FILL, 14 * MS);
+        mTracker.onStage(FlipMetrics.STAGE_LAYOUT, 30 * MS);
+        frame(2 * FRAME);
+
+        // Without the fill, the layout would have been blamed here too.
+        mTracker.onScrolled();
+        mTracker.onBegin(FlipMetrics.STAGE_LAYOUT);
+        mTracker.onBegin(FlipMetrics.STAGE_FILL);
+        mTracker.onBegin(FlipMetrics.STAGE_BIND);
+        mTracker.onStage(FlipMetrics.STAGE_BIND, 25 * MS);
+        mTracker.onStage(FlipMetrics.STAGE_FILL, 26 * MS);
+        mTracker.onStage(FlipMetrics.STAGE_LAYOUT, 30 * MS);
+        frame(2 * FRAME);
+
+        idle();
+
+        assertEquals(2, mReport.getJankyFrameCount());
+        assertEquals(FlipMetrics.STAGE_LAYOUT, mReport.getJankyFrameStage(0));
+        assertEquals(FlipMetrics.STAGE_BIND, mReport.getJankyFrameStage(1));
+        assertEquals(1, mReport.getJankyFrameCount(FlipMetrics.STAGE_LAYOUT));
+    }
+
+    @Test
+    public void gesture_endsAfterIdleFrames() {
+        mTracker.onScrolled();
+        frame(FRAME);
+        mTracker.onScrolled();
+        frame(FRAME);
+
+        for (int i = 1; i < FlipFrameTracker.IDLE_FRAMES; i++) {
+            assertTrue(mTracker.onFrame(mTime += FRAME));
+        }
+        assertNull(mReport);
+        assertFalse(mTracker.onFrame(mTime += FRAME));
+        assertEquals(1, mReport.getFrameCount());
+        assertEquals(0, mReport.getJankyFrameCount());
+
+        // The next scroll starts a new gesture with a fresh report.
+        mTracker.onScrolled();
+        frame(FRAME);
+        idle();
+        assertEquals(0, mReport.getFrameCount());
+    }
+
+    @Test
+    public void stages_arePassedOnToTheDelegate() {
+        FlipMetrics metrics = new FlipMetrics();
+        mTracker.setDelegate(metrics);
+
+        mTracker.onStage(FlipMetrics.STAGE_DRAW, 5 * MS);
+        mTracker.onStage(FlipMetrics.STAGE_DRAW, 7 * MS);
+
+        assertEquals(2, metrics.getCount(FlipMetrics.STAGE_DRAW));
+        assertEquals(12 * MS, metrics.getTotalNanos(FlipMetrics.STAGE_DRAW));
+    }
+
+    @Test
+    public void cancel_dropsTheGesture() {
+        mTracker.onScrolled();
+        frame(FRAME);
+        mTracker.cancel();
+
+        assertFalse(mTracker.onFrame(mTime += FRAME));
+        assertNull(mReport);
+    }
+
+    private void frame(long duration) {
+        assertTrue(mTracker.onFrame(mTime += duration));
+    }
+
+    private void idle() {
+        for (int i = 0; i < FlipFrameTracker.IDLE_FRAMES; i++) {
+            mTracker.onFrame(mTime += FRAME);
+        }
+    }
+}
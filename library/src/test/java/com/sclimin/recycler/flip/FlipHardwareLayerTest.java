@@ -0,0 +1,160 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.sclimin.recycler.flip.TestPages.HEIGHT;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Drags through pages with a hardware layer budget and checks which page contents hold a
+ * layer at every step.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipHardwareLayerTest {
+
+    private RecyclerView mRecyclerView;
+    private FlipLayoutManager mLayoutManager;
+    private ContentPageAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mLayoutManager = new FlipLayoutManager(context);
+        mAdapter = new ContentPageAdapter();
+        mRecyclerView = TestPages.create(context, mLayoutManager, mAdapter);
+        mLayoutManager.scrollToPosition(5);
+        TestPages.layout(mRecyclerView);
+    }
+
+    @Test
+    public void noBudget_promotesNothing() {
+        mLayoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+        mRecyclerView.scrollBy(0, HEIGHT / 4);
+
+        assertLayers(View.LAYER_TYPE_NONE, View.LAYER_TYPE_NONE, View.LAYER_TYPE_NONE);
+    }
+
+    @Test
+    public void drag_promotesCurrentPageAndFlipTargetWithinBudget() {
+        mLayoutManager.setHardwareLayerBudget(2);
+        assertLayers(View.LAYER_TYPE_NONE, View.LAYER_TYPE_NONE, View.LAYER_TYPE_NONE);
+
+        mLayoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+        mRecyclerView.scrollBy(0, HEIGHT / 4);
+        assertLayers(View.LAYER_TYPE_NONE, View.LAYER_TYPE_HARDWARE, View.LAYER_TYPE_HARDWARE);
+
+        // Flipping back moves the second layer to the previous page.
+        mRecyclerView.scrollBy(0, -HEIGHT / 2);
+        assertLayers(View.LAYER_TYPE_HARDWARE, View.LAYER_TYPE_HARDWARE, View.LAYER_TYPE_NONE);
+
+        mLayoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_IDLE);
+        assertLayers(View.LAYER_TYPE_NONE, View.LAYER_TYPE_NONE, View.LAYER_TYPE_NONE);
+    }
+
+    @Test
+    public void pageChange_keepsLayersOnTheWindowOnly() {
+        mLayoutManager.setHardwareLayerBudget(3);
+        mLayoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+
+        for (int page = 6; page <= 8; page++) {
+            mRecyclerView.scrollBy(0, HEIGHT);
+            assertEquals(page, mLayoutManager.getPage());
+            assertLayers(page, View.LAYER_TYPE_HARDWARE, View.LAYER_TYPE_HARDWARE,
+                    View.LAYER_TYPE_HARDWARE);
+            // Recycled pages have given up their layers.
+            assertEquals(3, mAdapter.countLayers());
+        }
+    }
+
+    @Test
+    public void ownLayers_areLeftAlone() {
+        content(6).setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        mLayoutManager.setHardwareLayerBudget(3);
+
+        mLayoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+        mRecyclerView.scrollBy(0, HEIGHT / 4);
+        mLayoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_IDLE);
+
+        assertEquals(View.LAYER_TYPE_SOFTWARE, content(6).getLayerType());
+    }
+
+    @Test
+    public void layerResetByTheApp_isNotPromotedTwice() {
+        mLayoutManager.setHardwareLayerBudget(2);
+        mLayoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+        mRecyclerView.scrollBy(0, HEIGHT / 4);
+        content(5).setLayerType(View.LAYER_TYPE_NONE, null);
+
+        // Would overrun the budget if the reset view counted as a new one.
+        mRecyclerView.scrollBy(0, HEIGHT / 8);
+        assertLayers(View.LAYER_TYPE_NONE, View.LAYER_TYPE_NONE, View.LAYER_TYPE_HARDWARE);
+
+        mLayoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_IDLE);
+        assertLayers(View.LAYER_TYPE_NONE, View.LAYER_TYPE_NONE, View.LAYER_TYPE_NONE);
+    }
+
+    private void assertLayers(int previous, int current, int next) {
+        assertLayers(5, previous, current, next);
+    }
+
+    private void assertLayers(int page, int previous, int current, int next) {
+        assertEquals(previous, content(page - 1).getLayerType());
+        assertEquals(current, content(page).getLayerType());
+        assertEquals(next, content(page + 1).getLayerType());
+    }
+
+    private View content(int position) {
+        return ((ViewGroup) mLayoutManager.findViewByPosition(position)).getChildAt(0);
+    }
+
+    private static final class ContentPageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final List<View> mContents = new ArrayList<>();
+
+        int countLayers() {
+            int count = 0;
+            for (View content : mContents) {
+                if (content.getLayerType() == View.LAYER_TYPE_HARDWARE) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            FlipSampleLayout page = new FlipSampleLayout(parent.getContext());
+            View content = new View(parent.getContext());
+            page.addView(content);
+            mContents.add(content);
+            return new RecyclerView.ViewHolder(page) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return 10;
+        }
+    }
+}
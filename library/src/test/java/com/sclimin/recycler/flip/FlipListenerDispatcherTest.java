@@ -0,0 +1,128 @@
+package com.sclimin.recycler.flip;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Sends several updates per frame through a {@link FlipListenerDispatcher} and checks that
+ * only the latest state of the frame reaches the listeners, once.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipListenerDispatcherTest {
+
+    private static final float EPSILON = 1e-4f;
+
+    private FlipListenerDispatcher mDispatcher;
+    private RecordingListener mListener;
+
+    @Before
+    public void setUp() {
+        mDispatcher = new FlipListenerDispatcher();
+        mListener = new RecordingListener();
+        mDispatcher.addListener(mListener);
+    }
+
+    @Test
+    public void updates_areCoalescedPerFrame() {
+        mDispatcher.update(5, RecyclerView.SCROLL_STATE_DRAGGING, 0.1f);
+        mDispatcher.update(5, RecyclerView.SCROLL_STATE_DRAGGING, 0.2f);
+        mDispatcher.dispatch();
+
+        assertEquals(1, mListener.mStateCount);
+        assertEquals(RecyclerView.SCROLL_STATE_DRAGGING, mListener.mState);
+        assertEquals(1, mListener.mSelectedCount);
+        assertEquals(5, mListener.mPage);
+        assertEquals(1, mListener.mFlippedCount);
+        assertEquals(5, mListener.mPosition);
+        assertEquals(0.2f, mListener.mPositionOffset, EPSILON);
+        assertEquals(0, mListener.mDirection);
+
+        mDispatcher.update(5, RecyclerView.SCROLL_STATE_DRAGGING, 0.2f);
+        mDispatcher.dispatch();
+        assertEquals(1, mListener.mStateCount);
+        assertEquals(1, mListener.mSelectedCount);
+        assertEquals(1, mListener.mFlippedCount);
+    }
+
+    @Test
+    public void flipAcrossTheFold_reportsPositionAndDirection() {
+        mDispatcher.update(5, RecyclerView.SCROLL_STATE_DRAGGING, 0.3f);
+        mDispatcher.dispatch();
+
+        mDispatcher.update(5, RecyclerView.SCROLL_STATE_DRAGGING, 0.45f);
+        mDispatcher.update(6, RecyclerView.SCROLL_STATE_DRAGGING, -0.4f);
+        mDispatcher.dispatch();
+        assertEquals(2, mListener.mSelectedCount);
+        assertEquals(6, mListener.mPage);
+        assertEquals(5, mListener.mPosition);
+        assertEquals(0.6f, mListener.mPositionOffset, EPSILON);
+        assertEquals(FlipLayoutManager.DIRECTION_NEXT, mListener.mDirection);
+
+        mDispatcher.update(6, RecyclerView.SCROLL_STATE_SETTLING, -0.45f);
+        mDispatcher.dispatch();
+        assertEquals(2, mListener.mStateCount);
+        assertEquals(RecyclerView.SCROLL_STATE_SETTLING, mListener.mState);
+        assertEquals(2, mListener.mSelectedCount);
+        assertEquals(0.55f, mListener.mPositionOffset, EPSILON);
+        assertEquals(FlipLayoutManager.DIRECTION_PREVIOUS, mListener.mDirection);
+    }
+
+    @Test
+    public void listener_canRemoveItselfWhileCalled() {
+        RecordingListener other = new RecordingListener() {
+            @Override
+            public void onPageSelected(int page) {
+                super.onPageSelected(page);
+                mDispatcher.removeListener(this);
+            }
+        };
+        mDispatcher.addListener(other);
+
+        mDispatcher.update(2, RecyclerView.SCROLL_STATE_IDLE, 0);
+        mDispatcher.dispatch();
+        mDispatcher.update(3, RecyclerView.SCROLL_STATE_IDLE, 0);
+        mDispatcher.dispatch();
+
+        assertEquals(1, other.mSelectedCount);
+        assertEquals(2, mListener.mSelectedCount);
+    }
+
+    private static class RecordingListener extends FlipLayoutManager.OnFlipListener {
+        int mStateCount;
+        int mState;
+        int mSelectedCount;
+        int mPage;
+        int mFlippedCount;
+        int mPosition;
+        float mPositionOffset;
+        int mDirection;
+
+        @Override
+        public void onFlipStateChanged(int state) {
+            mStateCount++;
+            mState = state;
+        }
+
+        @Override
+        public void onPageSelected(int page) {
+            mSelectedCount++;
+            mPage = page;
+        }
+
+        @Override
+        public void onFlipped(int position, float positionOffset, int direction) {
+            mFlippedCount++;
+            mPosition = position;
+            mPositionOffset = positionOffset;
+            mDirection = direction;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.sclimin.recycler.flip;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlipMultiPageFlingStrategyTest {
+
+    private static final int ITEM_COUNT = 100;
+
+    private final FlipMultiPageFlingStrategy mStrategy = new FlipMultiPageFlingStrategy(5);
+
+    @Test
+    public void shortFling_staysOnTheCurrentPage() {
+        assertEquals(5, mStrategy.findTargetPage(5, 0.1f, 0.3f, ITEM_COUNT));
+        assertEquals(5, mStrategy.findTargetPage(5, 0.f, 0.5f, ITEM_COUNT));
+        assertEquals(5, mStrategy.findTargetPage(5, 0.2f, -0.6f, ITEM_COUNT));
+    }
+
+    @Test
+    public void fling_settlesOnTheNearestPage() {
+        assertEquals(6, mStrategy.findTargetPage(5, 0.1f, 0.5f, ITEM_COUNT));
+        assertEquals(8, mStrategy.findTargetPage(5, 0.f, 3.4f, ITEM_COUNT));
+        assertEquals(9, mStrategy.findTargetPage(5, 0.f, 3.6f, ITEM_COUNT));
+        assertEquals(3, mStrategy.findTargetPage(5, -0.2f, -2.f, ITEM_COUNT));
+    }
+
+    @Test
+    public void fling_isLimitedToMaxPages() {
+        assertEquals(10, mStrategy.findTargetPage(5, 0.f, 40.f, ITEM_COUNT));
+        assertEquals(20, mStrategy.findTargetPage(25, 0.f, -40.f, ITEM_COUNT));
+
+        FlipMultiPageFlingStrategy single = new FlipMultiPageFlingStrategy(1);
+        assertEquals(6, single.findTargetPage(5, 0.f, 40.f, ITEM_COUNT));
+    }
+
+    @Test
+    public void fling_staysWithinTheAdapter() {
+        assertEquals(0, mStrategy.findTargetPage(1, 0.f, -4.f, ITEM_COUNT));
+        assertEquals(ITEM_COUNT - 1, mStrategy.findTargetPage(ITEM_COUNT - 2, 0.f, 4.f, ITEM_COUNT));
+        assertEquals(Integer.MAX_VALUE - 1,
+                mStrategy.findTargetPage(Integer.MAX_VALUE - 2, 0.f, 4.f, Integer.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroMaxPages_isRejected() {
+        new FlipMultiPageFlingStrategy(0);
+    }
+}
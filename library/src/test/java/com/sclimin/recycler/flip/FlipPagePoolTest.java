@@ -0,0 +1,151 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLog;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Warms up a {@link FlipPagePool} shared by two lists and checks that the pool is capped at the
+ * page window of the attached lists and that the first layout takes its pages from the pool.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipPagePoolTest {
+
+    private final Executor mExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private Context mContext;
+    private FlipPagePool mPagePool;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mPagePool = new FlipPagePool(mExecutor);
+    }
+
+    @Test
+    public void warmUp_isCappedByPageWindow() {
+        RecyclerView first = create();
+        mPagePool.attach(first);
+        mPagePool.warmUp(first, 0, 10);
+        ShadowLooper.idleMainLooper();
+
+        assertEquals(FlipPagePool.PAGE_WINDOW, mPagePool.getRecycledViewPool().getRecycledViewCount(0));
+
+        RecyclerView second = create();
+        mPagePool.attach(second);
+        assertSame(mPagePool.getRecycledViewPool(), second.getRecycledViewPool());
+        assertTrue(((FlipLayoutManager) second.getLayoutManager()).getRecycleChildrenOnDetach());
+
+        mPagePool.warmUp(second, 0, 10);
+        ShadowLooper.idleMainLooper();
+
+        assertEquals(2 * FlipPagePool.PAGE_WINDOW,
+                mPagePool.getRecycledViewPool().getRecycledViewCount(0));
+    }
+
+    @Test
+    public void firstLayout_takesPagesFromPool() {
+        RecyclerView recyclerView = create();
+        mPagePool.attach(recyclerView);
+        mPagePool.warmUp(recyclerView, 0, FlipPagePool.PAGE_WINDOW);
+        ShadowLooper.idleMainLooper();
+
+        TestPages.layout(recyclerView);
+
+        assertEquals(2, recyclerView.getChildCount());
+        assertEquals(1, mPagePool.getRecycledViewPool().getRecycledViewCount(0));
+    }
+
+    @Test
+    public void failedWarmUp_isNotLeftPending() {
+        FailingPageAdapter adapter = new FailingPageAdapter();
+        RecyclerView recyclerView = create();
+        recyclerView.setAdapter(adapter);
+        mPagePool.attach(recyclerView);
+
+        // The executor runs the warm-up inline, a failure would reach the test.
+        adapter.mFailing = true;
+        mPagePool.warmUp(recyclerView, 0, FlipPagePool.PAGE_WINDOW);
+        ShadowLooper.idleMainLooper();
+        assertEquals(0, mPagePool.getRecycledViewPool().getRecycledViewCount(0));
+        assertEquals(FlipPagePool.PAGE_WINDOW, ShadowLog.getLogsForTag("FlipPagePool").size());
+
+        // Creating the page for the layout still fails loudly.
+        boolean thrown = false;
+        try {
+            TestPages.layout(recyclerView);
+        }
+        catch (IllegalStateException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+
+        adapter.mFailing = false;
+        mPagePool.warmUp(recyclerView, 0, FlipPagePool.PAGE_WINDOW);
+        ShadowLooper.idleMainLooper();
+        assertEquals(FlipPagePool.PAGE_WINDOW, mPagePool.getRecycledViewPool().getRecycledViewCount(0));
+    }
+
+    @Test
+    public void viewTypesNotWarmedUp_areCappedByPageWindow() {
+        RecyclerView recyclerView = create();
+        mPagePool.attach(recyclerView);
+
+        RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+        for (int i = 0; i < 2 * FlipPagePool.PAGE_WINDOW; i++) {
+            mPagePool.getRecycledViewPool().putRecycledView(adapter.createViewHolder(recyclerView, 1));
+        }
+
+        assertEquals(FlipPagePool.PAGE_WINDOW, mPagePool.getRecycledViewPool().getRecycledViewCount(1));
+    }
+
+    private RecyclerView create() {
+        return TestPages.create(mContext, new FlipLayoutManager(mContext), new TestPageAdapter(10));
+    }
+
+    private static final class FailingPageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        boolean mFailing;
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            if (mFailing) {
+                throw new IllegalStateException("Inflation failed");
+            }
+            return new RecyclerView.ViewHolder(new FlipSampleLayout(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return 10;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.sclimin.recycler.flip;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlipPagerTest {
+
+    private static final int ITEM_LENGTH = 2400;
+    private static final int HUGE_ITEM_COUNT = 5_000_000;
+
+    private FlipPager mPager;
+
+    @Before
+    public void setUp() {
+        mPager = new FlipPager();
+        mPager.setItemLength(ITEM_LENGTH);
+    }
+
+    @Test
+    public void scrollBy_switchesPageAtHalfLength() {
+        assertEquals(ITEM_LENGTH / 2 - 1, mPager.scrollBy(ITEM_LENGTH / 2 - 1, 3));
+        assertEquals(0, mPager.getPage());
+        assertEquals(ITEM_LENGTH / 2 - 1, mPager.getOffset());
+
+        assertEquals(1, mPager.scrollBy(1, 3));
+        assertEquals(1, mPager.getPage());
+        assertEquals(-ITEM_LENGTH / 2, mPager.getOffset());
+    }
+
+    @Test
+    public void scrollBy_clampsToFirstAndLastPage() {
+        assertEquals(0, mPager.scrollBy(-100, 3));
+
+        assertEquals(2 * ITEM_LENGTH, mPager.scrollBy(10 * ITEM_LENGTH, 3));
+        assertEquals(2, mPager.getPage());
+        assertEquals(0, mPager.getOffset());
+    }
+
+    @Test
+    public void scrollBy_doesNotOverflowOnHugeAdapters() {
+        mPager.setPage(HUGE_ITEM_COUNT - 2);
+
+        assertEquals(ITEM_LENGTH, mPager.scrollBy(ITEM_LENGTH, HUGE_ITEM_COUNT));
+        assertEquals(HUGE_ITEM_COUNT - 1, mPager.getPage());
+        assertEquals(0, mPager.getOffset());
+
+        assertEquals(0, mPager.scrollBy(1, HUGE_ITEM_COUNT));
+
+        assertEquals(-10, mPager.scrollBy(-10, HUGE_ITEM_COUNT));
+        assertEquals(HUGE_ITEM_COUNT - 1, mPager.getPage());
+        assertEquals(-10, mPager.getOffset());
+    }
+
+    @Test
+    public void distanceTo_usesLongArithmetic() {
+        mPager.setPage(0);
+        assertEquals((long) (HUGE_ITEM_COUNT - 1) * ITEM_LENGTH, mPager.distanceTo(HUGE_ITEM_COUNT - 1));
+    }
+
+    @Test
+    public void findTargetPage_movesOnePageAtMost() {
+        mPager.setPage(HUGE_ITEM_COUNT / 2);
+        mPager.scrollBy(100, HUGE_ITEM_COUNT);
+
+        assertEquals(HUGE_ITEM_COUNT / 2, mPager.findTargetPage(100, HUGE_ITEM_COUNT));
+        assertEquals(HUGE_ITEM_COUNT / 2 + 1, mPager.findTargetPage(ITEM_LENGTH, HUGE_ITEM_COUNT));
+        assertEquals(HUGE_ITEM_COUNT / 2 + 1, mPager.findTargetPage(Integer.MAX_VALUE, HUGE_ITEM_COUNT));
+        assertEquals(HUGE_ITEM_COUNT / 2 - 1, mPager.findTargetPage(Integer.MIN_VALUE, HUGE_ITEM_COUNT));
+        assertEquals(FlipPager.NO_POSITION, mPager.findTargetPage(0, 0));
+    }
+
+    @Test
+    public void clamp_keepsPageInsideAdapter() {
+        mPager.setPage(10);
+        mPager.clamp(5);
+        assertEquals(4, mPager.getPage());
+
+        mPager.clamp(0);
+        assertEquals(0, mPager.getPage());
+    }
+
+    @Test
+    public void setPage_restoresOffsetFraction() {
+        mPager.setPage(3);
+        mPager.scrollBy(ITEM_LENGTH / 4, 10);
+        final float fraction = mPager.getOffsetFraction();
+        assertEquals(0.25f, fraction, 0.f);
+
+        mPager.setItemLength(ITEM_LENGTH * 2);
+        mPager.setPage(3, fraction);
+        assertEquals(3, mPager.getPage());
+        assertEquals(ITEM_LENGTH / 2, mPager.getOffset());
+
+        mPager.setPage(3, 5.f);
+        assertEquals(ITEM_LENGTH - 1, mPager.getOffset());
+    }
+
+    @Test
+    public void clamp_dropsOffsetPastFirstAndLastPage() {
+        mPager.setPage(0, -0.25f);
+        mPager.clamp(5);
+        assertEquals(0, mPager.getOffset());
+
+        mPager.setPage(4, 0.25f);
+        mPager.clamp(5);
+        assertEquals(4, mPager.getPage());
+        assertEquals(0, mPager.getOffset());
+    }
+
+    @Test
+    public void onItemsAdded_followsCurrentItem() {
+        mPager.setPage(5);
+        mPager.scrollBy(100, 10);
+
+        mPager.onItemsAdded(6, 3);
+        assertEquals(5, mPager.getPage());
+
+        mPager.onItemsAdded(5, 2);
+        assertEquals(7, mPager.getPage());
+
+        mPager.onItemsAdded(0, 1);
+        assertEquals(8, mPager.getPage());
+        assertEquals(100, mPager.getOffset());
+    }
+
+    @Test
+    public void onItemsRemoved_followsCurrentItem() {
+        mPager.setPage(8);
+        mPager.scrollBy(100, 10);
+
+        mPager.onItemsRemoved(9, 1);
+        assertEquals(8, mPager.getPage());
+
+        mPager.onItemsRemoved(0, 3);
+        assertEquals(5, mPager.getPage());
+        assertEquals(100, mPager.getOffset());
+
+        mPager.onItemsRemoved(4, 2);
+        assertEquals(4, mPager.getPage());
+        assertEquals(0, mPager.getOffset());
+    }
+
+    @Test
+    public void onItemsMoved_followsCurrentItem() {
+        mPager.setPage(5);
+
+        mPager.onItemsMoved(5, 2, 1);
+        assertEquals(2, mPager.getPage());
+
+        mPager.onItemsMoved(0, 4, 1);
+        assertEquals(1, mPager.getPage());
+
+        mPager.onItemsMoved(6, 1, 1);
+        assertEquals(2, mPager.getPage());
+
+        mPager.onItemsMoved(6, 8, 1);
+        assertEquals(2, mPager.getPage());
+    }
+}
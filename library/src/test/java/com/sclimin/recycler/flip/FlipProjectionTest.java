@@ -0,0 +1,131 @@
+package com.sclimin.recycler.flip;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FlipProjectionTest {
+
+    private static final float EPSILON = 1e-3f;
+
+    private static final float CENTER_X = 540;
+    private static final float CENTER_Y = 1200;
+
+    private final float[] mValues = new float[9];
+    private final float[] mPoint = new float[2];
+
+    @Test
+    public void zeroDegree_isIdentity() {
+        FlipProjection.compute(true, 0, CENTER_X, CENTER_Y, mValues);
+        assertIdentity(mValues);
+
+        FlipProjection.compute(false, 0, CENTER_X, CENTER_Y, mValues);
+        assertIdentity(mValues);
+    }
+
+    @Test
+    public void center_staysInPlace() {
+        for (int degree = -90; degree <= 90; degree += 15) {
+            FlipProjection.compute(true, degree, CENTER_X, CENTER_Y, mValues);
+            map(CENTER_X, CENTER_Y);
+            assertEquals(CENTER_X, mPoint[0], EPSILON);
+            assertEquals(CENTER_Y, mPoint[1], EPSILON);
+
+            FlipProjection.compute(false, degree, CENTER_X, CENTER_Y, mValues);
+            map(CENTER_X, CENTER_Y);
+            assertEquals(CENTER_X, mPoint[0], EPSILON);
+            assertEquals(CENTER_Y, mPoint[1], EPSILON);
+        }
+    }
+
+    @Test
+    public void vertical_foldsOntoTheHorizontalAxis() {
+        FlipProjection.compute(true, 90, CENTER_X, CENTER_Y, mValues);
+
+        map(0, 0);
+        assertEquals(CENTER_Y, mPoint[1], EPSILON);
+        map(2 * CENTER_X, 2 * CENTER_Y);
+        assertEquals(CENTER_Y, mPoint[1], EPSILON);
+    }
+
+    @Test
+    public void horizontal_foldsOntoTheVerticalAxis() {
+        FlipProjection.compute(false, 90, CENTER_X, CENTER_Y, mValues);
+
+        map(0, 0);
+        assertEquals(CENTER_X, mPoint[0], EPSILON);
+        map(2 * CENTER_X, 2 * CENTER_Y);
+        assertEquals(CENTER_X, mPoint[0], EPSILON);
+    }
+
+    @Test
+    public void perspective_scalesTheTwoEdgesDifferently() {
+        FlipProjection.compute(true, 45, CENTER_X, CENTER_Y, mValues);
+
+        map(0, 0);
+        final float topWidth = 2 * Math.abs(CENTER_X - mPoint[0]);
+        map(0, 2 * CENTER_Y);
+        final float bottomWidth = 2 * Math.abs(CENTER_X - mPoint[0]);
+
+        assertTrue(Math.abs(topWidth - bottomWidth) > 1);
+    }
+
+    @Test
+    public void vertical_bringsTheBottomEdgeTowardsTheViewer() {
+        FlipProjection.compute(true, 45, CENTER_X, CENTER_Y, mValues);
+        assertEquals(-Math.sin(Math.toRadians(45)) / FlipProjection.CAMERA_DISTANCE,
+                mValues[7], 1e-7);
+
+        map(0, 0);
+        final float topWidth = 2 * Math.abs(CENTER_X - mPoint[0]);
+        map(0, 2 * CENTER_Y);
+        final float bottomWidth = 2 * Math.abs(CENTER_X - mPoint[0]);
+
+        assertTrue(bottomWidth > 2 * CENTER_X);
+        assertTrue(topWidth < 2 * CENTER_X);
+    }
+
+    @Test
+    public void horizontal_bringsTheRightEdgeTowardsTheViewer() {
+        FlipProjection.compute(false, 45, CENTER_X, CENTER_Y, mValues);
+        assertEquals(-Math.sin(Math.toRadians(45)) / FlipProjection.CAMERA_DISTANCE,
+                mValues[6], 1e-7);
+
+        map(0, 0);
+        final float leftHeight = 2 * Math.abs(CENTER_Y - mPoint[1]);
+        map(2 * CENTER_X, 0);
+        final float rightHeight = 2 * Math.abs(CENTER_Y - mPoint[1]);
+
+        assertTrue(rightHeight > 2 * CENTER_Y);
+        assertTrue(leftHeight < 2 * CENTER_Y);
+    }
+
+    @Test
+    public void compute_reusesTheLastMatrix() {
+        FlipProjection projection = new FlipProjection();
+        projection.setCenter(CENTER_X, CENTER_Y);
+
+        float[] values = projection.compute(true, 30);
+        float first = values[7];
+        assertSame(values, projection.compute(true, 30));
+        assertEquals(first, projection.compute(true, 30)[7], 0);
+
+        projection.setCenter(0, 0);
+        assertEquals(0, projection.compute(true, 30)[5], EPSILON);
+    }
+
+    private void map(float x, float y) {
+        final float[] v = mValues;
+        final float w = v[6] * x + v[7] * y + v[8];
+        mPoint[0] = (v[0] * x + v[1] * y + v[2]) / w;
+        mPoint[1] = (v[3] * x + v[4] * y + v[5]) / w;
+    }
+
+    private static void assertIdentity(float[] values) {
+        for (int i = 0; i < 9; i++) {
+            assertEquals(i % 4 == 0 ? 1 : 0, values[i], EPSILON);
+        }
+    }
+}
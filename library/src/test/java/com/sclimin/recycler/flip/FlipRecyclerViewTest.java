@@ -0,0 +1,125 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sclimin.recycler.flip.TestPages.HEIGHT;
+import static com.sclimin.recycler.flip.TestPages.WIDTH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lays out pages that are plain views and checks that a {@link FlipRecyclerView} draws
+ * their flip, while a plain {@link RecyclerView} still rejects them.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipRecyclerViewTest {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void plainPages_flipInFlipRecyclerView() {
+        FlipRecyclerView recyclerView = new FlipRecyclerView(mContext);
+        FlipLayoutManager layoutManager = new FlipLayoutManager(mContext);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(new PlainPageAdapter());
+        layoutManager.scrollToPosition(5);
+        TestPages.layout(recyclerView);
+
+        recyclerView.scrollBy(0, HEIGHT / 4);
+        assertEquals(5, layoutManager.getPage());
+        CountingPage page = (CountingPage) layoutManager.findViewByPosition(5);
+        FlipLayoutManager.LayoutParams lp = (FlipLayoutManager.LayoutParams) page.getLayoutParams();
+        assertNotEquals(0, lp.mDegree, 0);
+
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        int saveCount = canvas.getSaveCount();
+        recyclerView.draw(canvas);
+
+        assertEquals(saveCount, canvas.getSaveCount());
+        // Once for the flipping half and once for the half that stays.
+        assertEquals(2, page.mDrawCount);
+    }
+
+    @Test
+    public void plainPages_areRejectedByRecyclerView() {
+        RecyclerView recyclerView = TestPages.create(mContext, new FlipLayoutManager(mContext),
+                new PlainPageAdapter());
+
+        boolean thrown = false;
+        try {
+            TestPages.layout(recyclerView);
+        }
+        catch (RuntimeException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void settledPage_isDrawnOnce() {
+        FlipRecyclerView recyclerView = new FlipRecyclerView(mContext);
+        FlipLayoutManager layoutManager = new FlipLayoutManager(mContext);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(new PlainPageAdapter());
+        TestPages.layout(recyclerView);
+
+        CountingPage page = (CountingPage) layoutManager.findViewByPosition(0);
+        recyclerView.draw(new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)));
+        assertEquals(1, page.mDrawCount);
+        assertFalse(recyclerView.isLayoutRequested());
+    }
+
+    private static final class CountingPage extends View {
+        int mDrawCount;
+
+        CountingPage(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onDraw(Canvas canvas) {
+            mDrawCount++;
+        }
+    }
+
+    private static final class PlainPageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new CountingPage(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return 10;
+        }
+    }
+}
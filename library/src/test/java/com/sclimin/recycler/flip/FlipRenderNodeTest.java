@@ -0,0 +1,87 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sclimin.recycler.flip.TestPages.HEIGHT;
+import static com.sclimin.recycler.flip.TestPages.WIDTH;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Draws a flipping page into a recording canvas, as a hardware accelerated window does on
+ * API 29+, and checks when the page content is recorded again.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 29)
+public class FlipRenderNodeTest {
+
+    private RecyclerView mRecyclerView;
+    private FlipLayoutManager mLayoutManager;
+    private final RenderNode mNode = new RenderNode("FlipRenderNodeTest");
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mLayoutManager = new FlipLayoutManager(context);
+        mRecyclerView = TestPages.create(context, mLayoutManager, new TestPageAdapter(10));
+        mLayoutManager.scrollToPosition(5);
+        TestPages.layout(mRecyclerView);
+        mNode.setPosition(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void flip_recordsThePageOnce() {
+        mRecyclerView.scrollBy(0, HEIGHT / 4);
+        TestPageAdapter.CountingPage page = findPage(5);
+
+        draw(page);
+        mRecyclerView.scrollBy(0, HEIGHT / 8);
+        draw(page);
+
+        assertEquals(1, page.mDrawSuperCount);
+    }
+
+    @Test
+    public void contentChange_recordsThePageAgainMidFlip() {
+        TestPageAdapter.CountingPage page = findPage(5);
+        View content = new View(page.getContext());
+        page.addView(content);
+
+        mRecyclerView.scrollBy(0, HEIGHT / 4);
+        draw(page);
+        assertEquals(1, page.mDrawSuperCount);
+
+        // What a hardware accelerated window reports for content.invalidate().
+        page.onDescendantInvalidated(content, content);
+        draw(page);
+        assertEquals(2, page.mDrawSuperCount);
+
+        draw(page);
+        assertEquals(2, page.mDrawSuperCount);
+    }
+
+    private void draw(View page) {
+        RecordingCanvas canvas = mNode.beginRecording(WIDTH, HEIGHT);
+        try {
+            page.draw(canvas);
+        }
+        finally {
+            mNode.endRecording();
+        }
+    }
+
+    private TestPageAdapter.CountingPage findPage(int position) {
+        return (TestPageAdapter.CountingPage) mLayoutManager.findViewByPosition(position);
+    }
+}
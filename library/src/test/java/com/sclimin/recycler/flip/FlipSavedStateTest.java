@@ -0,0 +1,67 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sclimin.recycler.flip.TestPages.HEIGHT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Saves the page and flip offset of one {@link FlipLayoutManager} and restores them into a
+ * fresh one, which has to bind the restored page window and nothing else.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipSavedStateTest {
+
+    @Test
+    public void restore_bindsOnlyRestoredWindow() {
+        Context context = ApplicationProvider.getApplicationContext();
+
+        FlipLayoutManager layoutManager = new FlipLayoutManager(context);
+        RecyclerView recyclerView = TestPages.create(context, layoutManager, new TestPageAdapter(20));
+        layoutManager.scrollToPosition(12);
+        TestPages.layout(recyclerView);
+        recyclerView.scrollBy(0, HEIGHT / 4);
+
+        Parcelable state = parcel(layoutManager.onSaveInstanceState());
+
+        FlipLayoutManager restored = new FlipLayoutManager(context);
+        restored.onRestoreInstanceState(state);
+        TestPageAdapter adapter = new TestPageAdapter(20);
+        RecyclerView restoredView = TestPages.create(context, restored, adapter);
+        TestPages.layout(restoredView);
+
+        assertEquals(12, restored.getPage());
+        assertEquals(3, adapter.getBindCount());
+        for (int position = 11; position <= 13; position++) {
+            assertNotNull(restored.findViewByPosition(position));
+        }
+
+        View page = restored.findViewByPosition(12);
+        assertEquals(45.f, ((FlipLayoutManager.LayoutParams) page.getLayoutParams()).mDegree, 0.f);
+    }
+
+    private static Parcelable parcel(Parcelable state) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeParcelable(state, 0);
+            parcel.setDataPosition(0);
+            return parcel.readParcelable(FlipLayoutManager.SavedState.class.getClassLoader());
+        }
+        finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.sclimin.recycler.flip;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.sclimin.recycler.flip.TestPages.HEIGHT;
+import static com.sclimin.recycler.flip.TestPages.WIDTH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Settles flips in a list attached to a window and checks that RecyclerView itself reports
+ * the settle, from {@link RecyclerView#SCROLL_STATE_SETTLING} to
+ * {@link RecyclerView#SCROLL_STATE_IDLE} once the page has landed.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipSettleTest {
+
+    private static final long FRAME_MILLIS = 16;
+    // The spring comes to rest within a second.
+    private static final int MAX_FRAMES = (int) (2000 / FRAME_MILLIS);
+
+    private RecyclerView mRecyclerView;
+    private FlipLayoutManager mLayoutManager;
+
+    private final List<Integer> mStates = new ArrayList<>();
+    private int mIdleOffset;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mLayoutManager = new FlipLayoutManager(activity);
+        mRecyclerView = TestPages.create(activity, mLayoutManager, new TestPageAdapter(10));
+        activity.setContentView(mRecyclerView, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+        ShadowLooper.idleMainLooper();
+
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                mStates.add(newState);
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    mIdleOffset = mLayoutManager.calculateDistanceToPage(mLayoutManager.getPage());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void fling_reportsSettlingUntilThePageLands() {
+        mRecyclerView.scrollBy(0, HEIGHT / 8);
+        assertTrue(mRecyclerView.fling(0, 10000));
+
+        runFrames();
+
+        assertEquals(Arrays.asList(RecyclerView.SCROLL_STATE_SETTLING,
+                RecyclerView.SCROLL_STATE_IDLE), mStates);
+        assertEquals(0, mIdleOffset);
+        assertEquals(1, mLayoutManager.getPage());
+        assertEquals(RecyclerView.SCROLL_STATE_IDLE, mLayoutManager.getFlipState());
+    }
+
+    @Test
+    public void smoothScrollToDistantPage_settlesAfterTheJump() {
+        mRecyclerView.smoothScrollToPosition(6);
+        assertEquals(RecyclerView.SCROLL_STATE_SETTLING, mLayoutManager.getFlipState());
+
+        runFrames();
+
+        assertEquals(Arrays.asList(RecyclerView.SCROLL_STATE_SETTLING,
+                RecyclerView.SCROLL_STATE_IDLE), mStates);
+        assertEquals(0, mIdleOffset);
+        assertEquals(6, mLayoutManager.getPage());
+    }
+
+    @Test
+    public void stoppedSettle_snapsAgain() {
+        mRecyclerView.scrollBy(0, HEIGHT / 8);
+        mRecyclerView.fling(0, 10000);
+        for (int i = 0; i < 4; i++) {
+            ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        // As a touch down on a settling list does.
+        mRecyclerView.stopScroll();
+        mStates.clear();
+
+        runFrames();
+
+        assertEquals(RecyclerView.SCROLL_STATE_IDLE, (int) mStates.get(mStates.size() - 1));
+        assertEquals(0, mIdleOffset);
+        assertEquals(0, mLayoutManager.calculateDistanceToPage(mLayoutManager.getPage()));
+    }
+
+    private void runFrames() {
+        for (int i = 0; i < MAX_FRAMES; i++) {
+            if (!mStates.isEmpty() && mStates.get(mStates.size() - 1) == RecyclerView.SCROLL_STATE_IDLE) {
+                return;
+            }
+            ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sclimin.recycler.flip.TestPages.HEIGHT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Smooth scrolls to distant pages and checks that only the page windows at both ends of the
+ * jump are bound, and that the settle waits for the jump to be laid out.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipSmoothScrollTest {
+
+    private RecyclerView mRecyclerView;
+    private FlipLayoutManager mLayoutManager;
+    private TestPageAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mLayoutManager = new FlipLayoutManager(context);
+        mAdapter = new TestPageAdapter(1000);
+        mRecyclerView = TestPages.create(context, mLayoutManager, mAdapter);
+        // Attaches the snap helper, the list is never attached to a window here.
+        mLayoutManager.onAttachedToWindow(mRecyclerView);
+        TestPages.layout(mRecyclerView);
+    }
+
+    @Test
+    public void smoothScrollToDistantPage_bindsTargetWindowOnly() {
+        final int bindCount = mAdapter.getBindCount();
+
+        mRecyclerView.smoothScrollToPosition(500);
+        TestPages.layout(mRecyclerView);
+
+        assertEquals(499, mLayoutManager.getPage());
+        assertTrue(mAdapter.getBindCount() - bindCount <= 3);
+
+        mRecyclerView.smoothScrollToPosition(2);
+        TestPages.layout(mRecyclerView);
+
+        assertEquals(3, mLayoutManager.getPage());
+        assertTrue(mAdapter.getBindCount() - bindCount <= 6);
+    }
+
+    @Test
+    public void smoothScrollToDistantPage_startsAfterTheJumpIsLaidOut() {
+        FlipSnapHelper snapHelper = (FlipSnapHelper) mRecyclerView.getOnFlingListener();
+
+        mRecyclerView.smoothScrollToPosition(500);
+        assertEquals(RecyclerView.SCROLL_STATE_SETTLING, mLayoutManager.getFlipState());
+        assertFalse(snapHelper.isAnimating());
+
+        TestPages.layout(mRecyclerView);
+        assertTrue(snapHelper.isAnimating());
+        assertNotNull(mLayoutManager.findViewByPosition(499));
+        assertNotNull(mLayoutManager.findViewByPosition(500));
+        assertEquals(HEIGHT, mLayoutManager.calculateDistanceToPage(500));
+
+        // Stopping, e.g. for a drag, drops a settle that still waits for the layout.
+        mRecyclerView.smoothScrollToPosition(2);
+        snapHelper.stop();
+        TestPages.layout(mRecyclerView);
+        assertFalse(snapHelper.isAnimating());
+        assertEquals(RecyclerView.SCROLL_STATE_IDLE, mLayoutManager.getFlipState());
+    }
+
+    @Test
+    public void smoothScrollToDistantPage_keepsTheFlipOffset() {
+        mRecyclerView.scrollBy(0, HEIGHT / 4);
+
+        mRecyclerView.smoothScrollToPosition(500);
+        TestPages.layout(mRecyclerView);
+
+        assertEquals(499, mLayoutManager.getPage());
+        assertEquals(HEIGHT - HEIGHT / 4, mLayoutManager.calculateDistanceToPage(500));
+    }
+}
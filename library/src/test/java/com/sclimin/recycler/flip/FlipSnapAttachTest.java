@@ -0,0 +1,72 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sclimin.recycler.flip.TestPages.HEIGHT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Attaches and detaches the layout manager repeatedly and checks that its snap helper
+ * follows, and that a multi-page fling jump binds the target window only.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipSnapAttachTest {
+
+    private RecyclerView mRecyclerView;
+    private FlipLayoutManager mLayoutManager;
+    private TestPageAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mLayoutManager = new FlipLayoutManager(context);
+        mAdapter = new TestPageAdapter(1000);
+        mRecyclerView = TestPages.create(context, mLayoutManager, mAdapter);
+        TestPages.layout(mRecyclerView);
+    }
+
+    @Test
+    public void reattach_reusesTheSnapHelper() {
+        RecyclerView.Recycler recycler = mRecyclerView.new Recycler();
+
+        mLayoutManager.onAttachedToWindow(mRecyclerView);
+        RecyclerView.OnFlingListener listener = mRecyclerView.getOnFlingListener();
+        assertNotNull(listener);
+
+        mLayoutManager.onDetachedFromWindow(mRecyclerView, recycler);
+        assertNull(mRecyclerView.getOnFlingListener());
+
+        mLayoutManager.onAttachedToWindow(mRecyclerView);
+        assertSame(listener, mRecyclerView.getOnFlingListener());
+    }
+
+    @Test
+    public void jumpNextToPage_keepsTheFlipAndBindsTargetWindowOnly() {
+        mRecyclerView.scrollBy(0, HEIGHT / 4);
+        final int bindCount = mAdapter.getBindCount();
+
+        mLayoutManager.jumpNextToPage(200);
+        TestPages.layout(mRecyclerView);
+
+        assertEquals(199, mLayoutManager.getPage());
+        assertTrue(mAdapter.getBindCount() - bindCount <= 3);
+        assertEquals(-HEIGHT / 4, mLayoutManager.calculateDistanceToPage(199));
+
+        mLayoutManager.jumpNextToPage(200);
+        assertEquals(199, mLayoutManager.getPage());
+    }
+}
@@ -0,0 +1,116 @@
+package com.sclimin.recycler.flip;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipSnapshotCacheTest {
+
+    private static final int WIDTH = 108;
+    private static final int HEIGHT = 192;
+    private static final int PAGE_BYTES = WIDTH * HEIGHT * 4;
+
+    private final FlipLayout mPage = new FlipLayout() {
+        @Override
+        public void drawSuper(Canvas canvas) {
+            canvas.drawColor(Color.WHITE);
+        }
+    };
+
+    private FlipSnapshotCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new FlipSnapshotCache(2 * PAGE_BYTES);
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        mCache.put(0, render());
+        mCache.put(1, render());
+        assertFalse(mCache.hasRoomFor(WIDTH, HEIGHT));
+
+        assertNotNull(mCache.get(0));
+        mCache.put(2, render());
+
+        assertNotNull(mCache.get(0));
+        assertNull(mCache.get(1));
+        assertEquals(2 * PAGE_BYTES, mCache.getBytes());
+    }
+
+    @Test
+    public void put_replacesTheEntryOfAKey() {
+        final long key = Long.MAX_VALUE - 1;
+        Bitmap first = render();
+        mCache.put(key, first);
+        mCache.put(1000, render());
+        Bitmap second = render();
+        mCache.put(key, second);
+
+        assertSame(second, mCache.get(key));
+        assertNotNull(mCache.get(1000));
+        assertEquals(2 * PAGE_BYTES, mCache.getBytes());
+        // The replaced snapshot was released for reuse.
+        assertSame(first, render());
+    }
+
+    @Test
+    public void render_reusesEvictedBitmap() {
+        Bitmap first = render();
+        mCache.put(0, first);
+        mCache.remove(0, first);
+
+        assertSame(first, render());
+    }
+
+    @Test
+    public void render_skipsPagesLargerThanCache() {
+        assertNull(mCache.render(mPage, WIDTH * 3, HEIGHT));
+    }
+
+    @Test
+    public void setConfig_rgb565HalvesPageSize() {
+        mCache.setConfig(Bitmap.Config.RGB_565);
+        for (int i = 0; i < 4; i++) {
+            mCache.put(i, render());
+        }
+
+        assertEquals(Bitmap.Config.RGB_565, mCache.get(3).getConfig());
+        assertEquals(2 * PAGE_BYTES, mCache.getBytes());
+    }
+
+    @Test
+    public void onTrimMemory_dropsSnapshots() {
+        mCache.put(0, render());
+        mCache.put(1, render());
+
+        mCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals(PAGE_BYTES, mCache.getBytes());
+
+        mCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertEquals(0, mCache.getBytes());
+        assertTrue(mCache.hasRoomFor(WIDTH, HEIGHT));
+    }
+
+    private Bitmap render() {
+        Bitmap bitmap = mCache.render(mPage, WIDTH, HEIGHT);
+        assertNotNull(bitmap);
+        return bitmap;
+    }
+}
@@ -0,0 +1,87 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the idle passes of {@link FlipSnapshotPrefetcher} by hand and checks that every attached
+ * page ends up with a ready snapshot, one page per pass.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipSnapshotPrefetcherTest {
+
+    private FlipLayoutManager mLayoutManager;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mLayoutManager = new FlipLayoutManager(context);
+        mLayoutManager.setSnapshotEnabled(true);
+        RecyclerView recyclerView = TestPages.create(context, mLayoutManager, new TestPageAdapter(10));
+        mLayoutManager.scrollToPosition(5);
+        TestPages.layout(recyclerView);
+    }
+
+    @Test
+    public void queueIdle_rendersOnePagePerPass() {
+        FlipSnapshotPrefetcher prefetcher = new FlipSnapshotPrefetcher(mLayoutManager);
+
+        assertTrue(prefetcher.queueIdle());
+        assertTrue(prefetcher.queueIdle());
+        assertTrue(prefetcher.queueIdle());
+        assertFalse(prefetcher.queueIdle());
+
+        for (int position = 4; position <= 6; position++) {
+            FlipLayoutHelper helper = FlipLayoutHelper.from(mLayoutManager.findViewByPosition(position));
+            assertNotNull(helper);
+            assertFalse(helper.prepareSnapshot());
+        }
+    }
+
+    @Test
+    public void invalidateSnapshot_rendersNothingUntilTheFlip() {
+        FlipLayoutHelper helper = FlipLayoutHelper.from(mLayoutManager.findViewByPosition(5));
+        assertTrue(helper.prepareSnapshot());
+        assertFalse(helper.prepareSnapshot());
+        Bitmap snapshot = mLayoutManager.getSnapshotCache().get(5);
+
+        helper.invalidateSnapshot();
+        // The stale snapshot is kept until a flip or the next idle pass renders it again.
+        assertSame(snapshot, mLayoutManager.getSnapshotCache().get(5));
+        assertTrue(helper.prepareSnapshot());
+    }
+
+    @Test
+    public void prepareSnapshot_skipsPagesThatKeepInvalidating() {
+        FlipLayoutHelper helper = FlipLayoutHelper.from(mLayoutManager.findViewByPosition(5));
+        assertTrue(helper.prepareSnapshot());
+        helper.invalidateSnapshot();
+        assertTrue(helper.prepareSnapshot());
+        helper.invalidateSnapshot();
+
+        assertFalse(helper.prepareSnapshot());
+    }
+
+    @Test
+    public void queueIdle_stopsWhenSnapshotsDisabled() {
+        FlipSnapshotPrefetcher prefetcher = new FlipSnapshotPrefetcher(mLayoutManager);
+        mLayoutManager.setSnapshotEnabled(false);
+
+        assertFalse(prefetcher.queueIdle());
+    }
+}
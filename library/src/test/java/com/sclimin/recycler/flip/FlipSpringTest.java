@@ -0,0 +1,80 @@
+package com.sclimin.recycler.flip;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FlipSpringTest {
+
+    private static final int DISTANCE = 1920;
+    private static final float FRAME = 1 / 60.f;
+    private static final float EPSILON = 1e-2f;
+
+    private FlipSpring mSpring;
+
+    @Before
+    public void setUp() {
+        mSpring = new FlipSpring();
+    }
+
+    @Test
+    public void start_keepsReleaseVelocity() {
+        mSpring.start(DISTANCE, 3000);
+
+        assertEquals(0, mSpring.getPosition(0), EPSILON);
+        assertEquals(3000, mSpring.getVelocity(0), EPSILON);
+    }
+
+    @Test
+    public void settle_reachesTargetWithoutOvershoot() {
+        mSpring.start(DISTANCE, 1_000_000);
+
+        float time = 0;
+        float last = 0;
+        while (!mSpring.isAtRest(time)) {
+            final float position = mSpring.getPosition(time);
+            assertTrue(position >= last - EPSILON);
+            assertTrue(position <= DISTANCE + EPSILON);
+            last = position;
+            time += FRAME;
+            assertTrue(time < 1);
+        }
+        assertEquals(DISTANCE, mSpring.getPosition(time), 0.5f);
+    }
+
+    @Test
+    public void settle_againstReleaseVelocityTurnsBack() {
+        mSpring.start(-200, 2000);
+
+        assertTrue(mSpring.getPosition(FRAME) > 0);
+        assertFalse(mSpring.isAtRest(FRAME));
+
+        float time = 0;
+        while (!mSpring.isAtRest(time)) {
+            time += FRAME;
+            assertTrue(time < 1);
+        }
+        assertEquals(-200, mSpring.getPosition(time), 0.5f);
+    }
+
+    @Test
+    public void settle_fullPageFromRestWithinHalfSecond() {
+        mSpring.start(DISTANCE, 0);
+
+        assertFalse(mSpring.isAtRest(0.25f));
+        assertTrue(mSpring.isAtRest(0.5f));
+    }
+
+    @Test
+    public void findRestTime_findsTheFirstFrameAtRest() {
+        mSpring.start(DISTANCE, 3000);
+
+        final float restTime = mSpring.findRestTime(1);
+        assertTrue(mSpring.isAtRest(restTime));
+        assertFalse(mSpring.isAtRest(restTime - FRAME));
+        assertEquals(0.1f, mSpring.findRestTime(0.1f), 0);
+    }
+}
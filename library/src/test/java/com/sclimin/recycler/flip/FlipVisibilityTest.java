@@ -0,0 +1,72 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Changes the flip direction back and forth around a page and checks that hiding and
+ * showing the neighbour pages never requests a layout.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipVisibilityTest {
+
+    private static final int STEP = 8;
+
+    private RecyclerView mRecyclerView;
+    private FlipLayoutManager mLayoutManager;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mLayoutManager = new FlipLayoutManager(context);
+        mRecyclerView = TestPages.create(context, mLayoutManager, new TestPageAdapter(10));
+        mLayoutManager.scrollToPosition(5);
+        TestPages.layout(mRecyclerView);
+    }
+
+    @Test
+    public void directionChange_doesNotRequestLayout() {
+        assertFalse(mRecyclerView.isLayoutRequested());
+
+        for (int i = 0; i < 10; i++) {
+            mRecyclerView.scrollBy(0, STEP);
+            assertVisibility(View.INVISIBLE, View.VISIBLE);
+            assertFalse(mRecyclerView.isLayoutRequested());
+
+            mRecyclerView.scrollBy(0, -2 * STEP);
+            assertVisibility(View.VISIBLE, View.INVISIBLE);
+            assertFalse(mRecyclerView.isLayoutRequested());
+
+            mRecyclerView.scrollBy(0, STEP);
+            assertVisibility(View.INVISIBLE, View.INVISIBLE);
+            assertFalse(mRecyclerView.isLayoutRequested());
+        }
+    }
+
+    private void assertVisibility(int previous, int next) {
+        assertEquals(5, mLayoutManager.getPage());
+        assertEquals(View.VISIBLE, findPage(5).getVisibility());
+        assertEquals(previous, findPage(4).getVisibility());
+        assertEquals(next, findPage(6).getVisibility());
+    }
+
+    private View findPage(int position) {
+        View view = mLayoutManager.findViewByPosition(position);
+        assertNotNull(view);
+        return view;
+    }
+}
@@ -0,0 +1,62 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+final class TestPageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    private int mItemCount;
+    private int mBindCount;
+
+    TestPageAdapter(int itemCount) {
+        mItemCount = itemCount;
+    }
+
+    void setItemCount(int itemCount) {
+        mItemCount = itemCount;
+    }
+
+    int getBindCount() {
+        return mBindCount;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = new CountingPage(parent.getContext());
+        return new RecyclerView.ViewHolder(view) {
+        };
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        mBindCount++;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    /**
+     * Counts how often the page draws its content, once per half of a flip frame.
+     */
+    static final class CountingPage extends FlipSampleLayout {
+        int mDrawSuperCount;
+
+        CountingPage(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void drawSuper(Canvas canvas) {
+            mDrawSuperCount++;
+            super.drawSuper(canvas);
+        }
+    }
+}
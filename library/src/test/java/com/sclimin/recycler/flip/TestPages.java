@@ -0,0 +1,33 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Sets up a {@link RecyclerView} with a {@link FlipLayoutManager} at a full page size.
+ */
+final class TestPages {
+
+    static final int WIDTH = 1080;
+    static final int HEIGHT = 1920;
+
+    private TestPages() {
+    }
+
+    static RecyclerView create(Context context, FlipLayoutManager layoutManager,
+                               RecyclerView.Adapter<?> adapter) {
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        return recyclerView;
+    }
+
+    static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
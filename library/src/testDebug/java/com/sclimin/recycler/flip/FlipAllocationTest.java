@@ -0,0 +1,243 @@
+package com.sclimin.recycler.flip;
+
+import android.app.Activity;
+import android.graphics.Matrix;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.ShadowMatrix;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static com.sclimin.recycler.flip.TestPages.HEIGHT;
+import static com.sclimin.recycler.flip.TestPages.WIDTH;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays drags and flings in a list attached to a window, frame by frame with the main
+ * looper paused, and checks that a flip frame does not allocate once the pages are warm.
+ * A frame is what the looper runs for it, the drag step or the settle as a RecyclerView
+ * smooth scroll, the GapWorker prefetch and the {@link FlipLayoutManager.OnFlipListener}
+ * dispatch, followed by a software draw of the pages from their snapshots. The pages are far
+ * enough into the list that their snapshot keys would not be cached boxes.
+ * <p>
+ * The looper allocates for every frame it runs, so a flip frame may allocate as much as an
+ * empty frame that asks the looper for the same callbacks and nothing more. A gesture may
+ * allocate when it starts, e.g. its smooth scroller, the fling itself is not measured.
+ * Robolectric's {@link Matrix} shadow allocates where a device writes native memory,
+ * {@link ShadowInPlaceMatrix} keeps the flip matrix in place instead.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, shadows = FlipAllocationTest.ShadowInPlaceMatrix.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class FlipAllocationTest {
+
+    private static final int PAGE_COUNT = 1000;
+    private static final int START_PAGE = PAGE_COUNT / 2;
+
+    private static final long FRAME_MILLIS = 16;
+    private static final int DRAG_FRAMES = 6;
+    private static final int DRAG_STEP = HEIGHT / 64;
+    private static final int FLING_VELOCITY = 10000;
+    // The spring comes to rest within a second.
+    private static final int MAX_SETTLE_FRAMES = (int) (2000 / FRAME_MILLIS);
+    private static final int WARM_UP_GESTURES = 4;
+    private static final int EMPTY_FRAMES = 8;
+
+    private RecyclerView mRecyclerView;
+    private FlipLayoutManager mLayoutManager;
+
+    private final FlipDrawCounter mCanvas = new FlipDrawCounter(WIDTH, HEIGHT);
+    private final long[] mFrameBytes = new long[2 * (DRAG_FRAMES + MAX_SETTLE_FRAMES)];
+    private int mFrameCount;
+    private boolean mMeasuring;
+
+    private boolean mIdle;
+    private int mFlippedCount;
+
+    private final Runnable mEmptyRunnable = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final Choreographer.FrameCallback mEmptyFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+        }
+    };
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mLayoutManager = new FlipLayoutManager(activity);
+        mLayoutManager.setSnapshotEnabled(true);
+        mRecyclerView = TestPages.create(activity, mLayoutManager, new TestPageAdapter(PAGE_COUNT));
+        mLayoutManager.scrollToPosition(START_PAGE);
+        activity.setContentView(mRecyclerView, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+        ShadowLooper.idleMainLooper();
+
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    mIdle = true;
+                }
+            }
+        });
+        mLayoutManager.addOnFlipListener(new FlipLayoutManager.OnFlipListener() {
+            @Override
+            public void onFlipped(int position, float positionOffset, int direction) {
+                mFlippedCount++;
+            }
+        });
+    }
+
+    @Test
+    public void steadyFlip_doesNotAllocate() {
+        for (int i = 0; i < WARM_UP_GESTURES; i++) {
+            replayGesture(i % 2 == 0 ? 1 : -1);
+        }
+
+        long emptyFrameBytes = 0;
+        for (int i = 0; i < EMPTY_FRAMES; i++) {
+            emptyFrameBytes = Math.max(emptyFrameBytes, runEmptyFrame());
+        }
+
+        mFlippedCount = 0;
+        mMeasuring = true;
+        replayGesture(1);
+        replayGesture(-1);
+        mMeasuring = false;
+
+        assertTrue("No flip was dispatched", mFlippedCount > 0);
+        assertTrue("No snapshot was cached", mLayoutManager.getSnapshotCache().getBytes() > 0);
+        for (int i = 0; i < mFrameCount; i++) {
+            assertTrue("Frame " + i + " of " + mFrameCount + " allocated " + mFrameBytes[i] +
+                            " bytes, an empty frame " + emptyFrameBytes,
+                    mFrameBytes[i] <= emptyFrameBytes);
+        }
+    }
+
+    /**
+     * Drags towards the next or previous page and flings there.
+     */
+    private void replayGesture(int direction) {
+        for (int i = 0; i < DRAG_FRAMES; i++) {
+            runFrame(direction * DRAG_STEP);
+        }
+
+        mIdle = false;
+        assertTrue(mRecyclerView.fling(0, direction * FLING_VELOCITY));
+        for (int i = 0; i < MAX_SETTLE_FRAMES && !mIdle; i++) {
+            runFrame(0);
+        }
+        assertTrue("The fling did not settle", mIdle);
+    }
+
+    private void runFrame(int drag) {
+        final long before = allocatedBytes();
+        if (drag != 0) {
+            mRecyclerView.scrollBy(0, drag);
+        }
+        ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        drawPages();
+        final long allocated = allocatedBytes() - before;
+
+        if (mMeasuring) {
+            mFrameBytes[mFrameCount++] = allocated;
+        }
+    }
+
+    /**
+     * @return what the looper allocates for a frame that invalidates the list and posts the
+     * animation, frame and message callbacks a flip frame posts, with nothing to do in them.
+     */
+    private long runEmptyFrame() {
+        final long before = allocatedBytes();
+        mRecyclerView.invalidate();
+        mRecyclerView.postOnAnimation(mEmptyRunnable);
+        mRecyclerView.post(mEmptyRunnable);
+        Choreographer.getInstance().postFrameCallback(mEmptyFrameCallback);
+        ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        return allocatedBytes() - before;
+    }
+
+    private void drawPages() {
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            final View page = mRecyclerView.getChildAt(i);
+            if (page.getVisibility() == View.VISIBLE) {
+                mCanvas.reset();
+                page.draw(mCanvas);
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Keeps the values of a matrix that is set from values, as the flip matrix is, in place.
+     * A matrix changed in any other way is left to {@link ShadowMatrix}.
+     */
+    @Implements(Matrix.class)
+    public static class ShadowInPlaceMatrix extends ShadowMatrix {
+
+        private final float[] mValues = new float[9];
+        private boolean mHasValues;
+
+        @Implementation
+        @Override
+        protected void setValues(float[] values) {
+            System.arraycopy(values, 0, mValues, 0, mValues.length);
+            mHasValues = true;
+        }
+
+        @Implementation
+        @Override
+        protected void getValues(float[] values) {
+            if (mHasValues) {
+                System.arraycopy(mValues, 0, values, 0, mValues.length);
+            }
+            else {
+                super.getValues(values);
+            }
+        }
+
+        @Implementation
+        @Override
+        protected boolean isIdentity() {
+            if (!mHasValues) {
+                return super.isIdentity();
+            }
+            final float[] values = mValues;
+            return values[0] == 1 && values[1] == 0 && values[2] == 0 &&
+                    values[3] == 0 && values[4] == 1 && values[5] == 0 &&
+                    values[6] == 0 && values[7] == 0 && values[8] == 1;
+        }
+
+        @Implementation
+        @Override
+        protected void reset() {
+            mHasValues = false;
+            super.reset();
+        }
+    }
+}
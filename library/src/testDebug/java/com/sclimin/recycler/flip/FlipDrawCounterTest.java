@@ -0,0 +1,114 @@
+package com.sclimin.recycler.flip;
+
+import android.content.Context;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.sclimin.recycler.flip.TestPages.HEIGHT;
+import static com.sclimin.recycler.flip.TestPages.WIDTH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Draws flipping and settled pages into a {@link FlipDrawCounter} and pins down how much
+ * drawing a flip frame costs.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FlipDrawCounterTest {
+
+    private static final float EPSILON = 1e-3f;
+
+    private RecyclerView mRecyclerView;
+    private FlipLayoutManager mLayoutManager;
+    private FlipDrawCounter mCounter;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mLayoutManager = new FlipLayoutManager(context);
+        mRecyclerView = TestPages.create(context, mLayoutManager, new TestPageAdapter(10));
+        mLayoutManager.scrollToPosition(5);
+        TestPages.layout(mRecyclerView);
+        mCounter = new FlipDrawCounter(WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void settledPage_drawsWithoutFlipping() {
+        findPage(5).draw(mCounter);
+
+        assertEquals(0, findPage(5).mDrawSuperCount);
+        assertEquals(0, mCounter.getClipCount());
+        assertEquals(0, mCounter.getConcatCount());
+        assertEquals(1, mCounter.getSaveCount());
+    }
+
+    @Test
+    public void flippingPage_drawsItsContentTwice() {
+        mRecyclerView.scrollBy(0, HEIGHT / 4);
+        findPage(5).draw(mCounter);
+
+        // Once for the flipping half and once for the half that stays.
+        assertEquals(2, findPage(5).mDrawSuperCount);
+        assertEquals(2, mCounter.getClipCount());
+        assertEquals(1, mCounter.getConcatCount());
+        assertEquals(1, mCounter.getSaveCount());
+        assertEquals(2, mCounter.getMaxSaveCount());
+        // The pages draw nothing themselves, only the shade over the flipping half.
+        assertEquals(0.5f, mCounter.getOverdraw(), EPSILON);
+
+        mLayoutManager.setShadingEnabled(false);
+        mCounter.reset();
+        findPage(5).draw(mCounter);
+        assertEquals(4, findPage(5).mDrawSuperCount);
+        assertEquals(0, mCounter.getOverdraw(), EPSILON);
+    }
+
+    @Test
+    public void snapshot_replacesDrawSuperWithBitmaps() {
+        mLayoutManager.setSnapshotCache(new FlipSnapshotCache(2 * 4 * WIDTH * HEIGHT));
+        mLayoutManager.setSnapshotEnabled(true);
+        mRecyclerView.scrollBy(0, HEIGHT / 4);
+        findPage(5).draw(mCounter);
+
+        // Rendered once into the snapshot.
+        assertEquals(1, findPage(5).mDrawSuperCount);
+        // Both halves of the snapshot and the shade, half a page each.
+        assertEquals(3, mCounter.getDrawCount());
+        assertEquals(1.5f, mCounter.getOverdraw(), EPSILON);
+        assertEquals(1, mCounter.getSaveCount());
+    }
+
+    @Test
+    public void textPathsAndLines_countTheirBounds() {
+        Paint paint = new Paint();
+        paint.setTextSize(40);
+        mCounter.drawText("flip", 100, 100, paint);
+        assertEquals(1, mCounter.getDrawCount());
+        assertTrue(mCounter.getDrawnArea() > 0);
+
+        mCounter.reset();
+        Path path = new Path();
+        path.addRect(0, 0, 100, 200, Path.Direction.CW);
+        mCounter.drawPath(path, paint);
+        assertEquals(100 * 200, mCounter.getDrawnArea(), EPSILON);
+
+        mCounter.reset();
+        paint.setStrokeWidth(10);
+        mCounter.drawLine(100, 100, 400, 100, paint);
+        assertEquals(310 * 10, mCounter.getDrawnArea(), EPSILON);
+    }
+
+    private TestPageAdapter.CountingPage findPage(int position) {
+        return (TestPageAdapter.CountingPage) mLayoutManager.findViewByPosition(position);
+    }
+}